@@ -0,0 +1,55 @@
+package org.example.wag.bench;
+
+import org.example.wag.ConcurrentGraphSpace;
+import org.example.wag.GraphSpace;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// eight writers linking random pairs of a small node set, the contention rate of each iteration is printed after it
+// mvn -P bench package && java -jar target/benchmarks.jar ConcurrentGraphSpaceBenchmark
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ConcurrentGraphSpaceBenchmark {
+    @Param({"1", "16", "128"})
+    public int stripes;
+
+    @Param({"50", "5000"})
+    public int nodes;
+
+    private ConcurrentGraphSpace space;
+
+    @State(Scope.Thread)
+    public static class Writer {
+        private final Random random = new Random();
+    }
+
+    @Setup
+    public void setup() {
+        space = new ConcurrentGraphSpace(GraphSpace.Mode.ACCUMULATE, stripes);
+        for (int i = 0; i < nodes; i++) {
+            space.emplace("w" + i);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        space.resetCounters();
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        System.out.printf("contention %.4f (%d of %d acquisitions)%n", space.getContentionRate(), space.getContentions(), space.getAcquisitions());
+    }
+
+    @Benchmark
+    public void setLink(Writer writer) {
+        space.setLink(writer.random.nextInt(nodes), writer.random.nextInt(nodes), writer.random.nextBoolean() ? 1 : -1);
+    }
+}
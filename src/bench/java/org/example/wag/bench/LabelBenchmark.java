@@ -0,0 +1,71 @@
+package org.example.wag.bench;
+
+import org.example.wag.Label;
+import org.example.wag.TermDictionary;
+import org.example.wag.TokenBuffer;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// word class tests over a million token corpus, decoded tag bits against the tag string prefixes they replaced
+// mvn -P bench package && java -jar target/benchmarks.jar LabelBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LabelBenchmark {
+    private static final String @NotNull [] TAGS = {
+            "NN", "NN", "NNS", "NNP", "NNP", "NNPS", "DT", "DT", "IN", "IN", "JJ", "JJR", "VB", "VBZ", "VBD",
+            "VBN", "RB", "PRP", "PRP$", "CC", ".", ",", "TO", "MD", "CD", "POS", "WP"
+    };
+
+    @Param("1000000")
+    public int tokens;
+
+    private TokenBuffer buffer;
+
+    @Setup
+    public void setup() {
+        final TermDictionary terms = new TermDictionary();
+        final Random random = new Random(42);
+        buffer = new TokenBuffer(terms, tokens);
+        for (int i = 0; i < tokens; i++) {
+            final String word = "w" + random.nextInt(5000);
+            buffer.add(word, TAGS[random.nextInt(TAGS.length)], word, i % 30 + 1);
+        }
+    }
+
+    @Benchmark
+    public int bits() {
+        int count = 0;
+        for (int i = 0; i < buffer.size(); i++) {
+            if (Label.isNoun(buffer, i)) {
+                count++;
+            }
+            if (Label.isCommonNoun(buffer, i)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // the predicates as they were before the tags were decoded
+    @Benchmark
+    public int strings() {
+        int count = 0;
+        for (int i = 0; i < buffer.size(); i++) {
+            final String tag = buffer.tag(i);
+            if (tag.startsWith("NN")) {
+                count++;
+            }
+            if (tag.startsWith("NN") && !tag.startsWith("NNP")) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -1,5 +1,6 @@
 package org.example;
 
+import org.example.wag.export.Exporter;
 import org.example.wag.world.GlobalWorld;
 
 import java.io.IOException;
@@ -7,8 +8,6 @@ import java.io.IOException;
 public class Main {
     public static void main(String[] args) throws IOException {
         GlobalWorld world = GlobalWorld.generate("playground.txt");
-        System.out.println(world.displaySubjects());
-        System.out.println("---\n" + world.displayVectorSpace());
-        System.out.println("---\n" + world.displayGraphSpace());
+        world.export(new Exporter(System.out, Exporter.Format.PRETTY));
     }
 }
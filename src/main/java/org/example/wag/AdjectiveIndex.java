@@ -4,112 +4,162 @@ import edu.stanford.nlp.ling.CoreLabel;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Arrays;
-import java.util.function.IntPredicate;
-import java.util.function.Predicate;
-import java.util.stream.IntStream;
 
+// adjectives and their lemmas, both resolved through hashed indexes, each lemma keeps the postings of its adjectives
 public class AdjectiveIndex {
-    private int @NotNull [] lemma_hashes = new int[0];
-    private int @NotNull [] adjective_hashes = new int[0];
-    private int @NotNull [] entries = new int[0];
+    private final @NotNull TermDictionary terms;
+    private int @NotNull [] lemma_ids = new int[16];
+    private int @NotNull [] adjective_ids = new int[16];
+    private int @NotNull [] entries = new int[16]; // adjective index -> lemma index
+    private int lemmaCount = 0;
+    private int adjectiveCount = 0;
+    private final @NotNull IntIndex lemmas = new IntIndex(); // lemma id -> lemma index
+    private final @NotNull IntIndex adjectives = new IntIndex(); // adjective id -> adjective index
+    private int @NotNull [] @NotNull [] postings = new int[16][]; // lemma index -> adjective indices
+    private int @NotNull [] postingSizes = new int[16];
+
+    public AdjectiveIndex(@NotNull TermDictionary terms) {
+        this.terms = terms;
+    }
 
     public AdjectiveIndex add(@NotNull String adjective, @NotNull String lemma) {
-        int lindex = Arrays.stream(lemma_hashes).boxed().toList().indexOf(lemma.hashCode());
-        int aindex;
-        if (lindex == -1) {
-            lindex = lemma_hashes.length;
-            aindex = adjective_hashes.length;
-            lemma_hashes = Arrays.copyOf(lemma_hashes, lemma_hashes.length + 1);
-            lemma_hashes[lemma_hashes.length - 1] = lemma.hashCode();
-            adjective_hashes = Arrays.copyOf(adjective_hashes, adjective_hashes.length + 1);
-            adjective_hashes[adjective_hashes.length - 1] = adjective.hashCode();
-            entries = Arrays.copyOf(entries, entries.length + 1);
-            entries[aindex] = lindex;
-        } else {
-            aindex = Arrays.stream(adjective_hashes).boxed().toList().indexOf(adjective.hashCode());
-            if (aindex == -1) {
-                aindex = adjective_hashes.length;
-                adjective_hashes = Arrays.copyOf(adjective_hashes, adjective_hashes.length + 1);
-                adjective_hashes[adjective_hashes.length - 1] = adjective.hashCode();
-                entries = Arrays.copyOf(entries, entries.length + 1);
-                entries[aindex] = lindex;
-            }
+        return addFromId(terms.id(adjective), terms.id(lemma));
+    }
+
+    // an adjective keeps the lemma it was first seen with
+    public AdjectiveIndex addFromId(int adjective, int lemma) {
+        if (adjectives.containsKey(adjective)) {
+            return this;
+        }
+        final int lindex = lemmaIndex(lemma);
+        final int aindex = adjectiveCount++;
+        if (aindex == adjective_ids.length) {
+            adjective_ids = Arrays.copyOf(adjective_ids, aindex * 2);
+            entries = Arrays.copyOf(entries, aindex * 2);
         }
+        adjective_ids[aindex] = adjective;
+        entries[aindex] = lindex;
+        adjectives.put(adjective, aindex);
+
+        if (postingSizes[lindex] == postings[lindex].length) {
+            postings[lindex] = Arrays.copyOf(postings[lindex], postingSizes[lindex] * 2);
+        }
+        postings[lindex][postingSizes[lindex]++] = aindex;
         return this;
     }
 
+    // index of the lemma, registered when absent
+    private int lemmaIndex(int lemma) {
+        int lindex = lemmas.get(lemma);
+        if (lindex != -1) {
+            return lindex;
+        }
+        lindex = lemmaCount++;
+        if (lindex == lemma_ids.length) {
+            lemma_ids = Arrays.copyOf(lemma_ids, lindex * 2);
+            postings = Arrays.copyOf(postings, lindex * 2);
+            postingSizes = Arrays.copyOf(postingSizes, lindex * 2);
+        }
+        lemma_ids[lindex] = lemma;
+        postings[lindex] = new int[2];
+        postingSizes[lindex] = 0;
+        lemmas.put(lemma, lindex);
+        return lindex;
+    }
+
     public AdjectiveIndex add(@NotNull CoreLabel label) {
         add(label.word(), label.lemma());
         return this;
     }
 
+    public AdjectiveIndex add(@NotNull TokenBuffer tokens, int i) {
+        if (tokens.terms() == terms) {
+            return addFromId(tokens.wordId(i), tokens.lemmaId(i));
+        }
+        return add(tokens.word(i), tokens.lemma(i));
+    }
+
     public boolean hasLemma(@NotNull String lemma) {
-        return Arrays.stream(lemma_hashes).anyMatch(h -> h == lemma.hashCode());
+        return hasLemmaFromId(terms.find(lemma));
     }
 
-    public boolean hasLemmaFromCode(int code) {
-        return Arrays.stream(lemma_hashes).anyMatch(h -> h == code);
+    public boolean hasLemmaFromId(int id) {
+        return lemmas.containsKey(id);
     }
 
     public boolean hasAdjective(@NotNull String adjective) {
-        return Arrays.stream(adjective_hashes).anyMatch(h -> h == adjective.hashCode());
+        return hasAdjectiveFromId(terms.find(adjective));
     }
 
-    public boolean hasAdjectiveFromCode(int code) {
-        return Arrays.stream(adjective_hashes).anyMatch(h -> h == code);
+    public boolean hasAdjectiveFromId(int id) {
+        return adjectives.containsKey(id);
     }
 
     public int getLemmaIndex(@NotNull String lemma) {
-        return Arrays.stream(lemma_hashes).boxed().toList().indexOf(lemma.hashCode());
+        return getLemmaIndexFromId(terms.find(lemma));
     }
-    public int getLemmaIndexFromCode(int code) {
-        return Arrays.stream(lemma_hashes).boxed().toList().indexOf(code);
+    public int getLemmaIndexFromId(int id) {
+        return lemmas.get(id);
     }
     public int getAdjectiveIndex(@NotNull String adjective) {
-        return Arrays.stream(adjective_hashes).boxed().toList().indexOf(adjective.hashCode());
+        return getAdjectiveIndexFromId(terms.find(adjective));
     }
-    public int getAdjectiveIndexFromCode(int code) {
-        return Arrays.stream(adjective_hashes).boxed().toList().indexOf(code);
+    public int getAdjectiveIndexFromId(int id) {
+        return adjectives.get(id);
     }
     public int getLemmaIndexFromAdjective(@NotNull String adjective) {
         return entries[getAdjectiveIndex(adjective)];
     }
-    public int getLemmaIndexFromAdjectiveFromCode(int code) {
-        return entries[getAdjectiveIndexFromCode(code)];
+    public int getLemmaIndexFromAdjectiveFromId(int id) {
+        return entries[getAdjectiveIndexFromId(id)];
     }
+    // ids of the adjectives seen with the lemma, in insertion order
     public int @NotNull [] getAdjectivesFromLemma(@NotNull String lemma) {
-        int index = getLemmaIndex(lemma);
-        return Arrays.stream(entries).filter(i -> i == index).map(i -> adjective_hashes[i]).toArray();
+        return getAdjectivesFromLemmaId(terms.find(lemma));
     }
-    public int getLemmaHashFromIndex(int index) {
-        return lemma_hashes[index];
+    public int @NotNull [] getAdjectivesFromLemmaId(int id) {
+        final int lindex = getLemmaIndexFromId(id);
+        if (lindex == -1) {
+            return new int[0];
+        }
+        final int[] ids = new int[postingSizes[lindex]];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = adjective_ids[postings[lindex][i]];
+        }
+        return ids;
+    }
+    public int getLemmaIdFromIndex(int index) {
+        return lemma_ids[index];
+    }
+    public int getAdjectiveIdFromIndex(int index) {
+        return adjective_ids[index];
     }
-    public int getAdjectiveHashFromIndex(int index) {
-        return adjective_hashes[index];
+    public int lemmaCount() {
+        return lemmaCount;
+    }
+    public int adjectiveCount() {
+        return adjectiveCount;
     }
 
+    // linear in the size of the other index, lemmas first so they keep their relative order
     public void merge(@NotNull AdjectiveIndex other) {
-        int @NotNull [] new_lemma_hashes = Arrays.stream(other.lemma_hashes).filter((IntPredicate) Predicate.not(this::hasLemmaFromCode)).toArray();
-        int @NotNull [] new_adjective_hashes = Arrays.stream(other.adjective_hashes).filter((IntPredicate) Predicate.not(this::hasAdjectiveFromCode)).toArray();
-        int @NotNull [] new_entries = IntStream.range(0, new_adjective_hashes.length).map(i -> Arrays.stream(other.entries).boxed().toList().indexOf(i)).toArray();
-        if (new_lemma_hashes.length > 0) {
-            lemma_hashes = Arrays.copyOf(lemma_hashes, lemma_hashes.length + new_lemma_hashes.length);
-            System.arraycopy(new_lemma_hashes, 0, lemma_hashes, lemma_hashes.length - new_lemma_hashes.length, new_lemma_hashes.length);
+        if (other.terms != terms) {
+            throw new IllegalArgumentException("Cannot merge indexes built on different term dictionaries");
+        }
+        for (int i = 0; i < other.lemmaCount; i++) {
+            lemmaIndex(other.lemma_ids[i]);
         }
-        if (new_adjective_hashes.length > 0) {
-            adjective_hashes = Arrays.copyOf(adjective_hashes, adjective_hashes.length + new_adjective_hashes.length);
-            System.arraycopy(new_adjective_hashes, 0, adjective_hashes, adjective_hashes.length - new_adjective_hashes.length, new_adjective_hashes.length);
-            entries = Arrays.copyOf(entries, entries.length + new_entries.length);
-            System.arraycopy(new_entries, 0, entries, entries.length - new_entries.length, new_entries.length);
+        for (int i = 0; i < other.adjectiveCount; i++) {
+            addFromId(other.adjective_ids[i], other.lemma_ids[other.entries[i]]);
         }
     }
 
     @Override
     public String toString() {
         return "AdjectiveIndex{" +
-                "lemma_hashes=" + Arrays.toString(lemma_hashes) +
-                ", adjective_hashes=" + Arrays.toString(adjective_hashes) +
-                ", entries=" + Arrays.toString(entries) +
+                "lemma_ids=" + Arrays.toString(Arrays.copyOf(lemma_ids, lemmaCount)) +
+                ", adjective_ids=" + Arrays.toString(Arrays.copyOf(adjective_ids, adjectiveCount)) +
+                ", entries=" + Arrays.toString(Arrays.copyOf(entries, adjectiveCount)) +
                 '}';
     }
 }
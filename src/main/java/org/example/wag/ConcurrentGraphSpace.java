@@ -0,0 +1,300 @@
+package org.example.wag;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// GraphSpace variant safe to fill from many threads
+// nodes are registered once through a concurrent map and stored in fixed size segments that never move,
+// a link is written under the locks of both node stripes, taken in ascending stripe order so writers cannot deadlock,
+// both ends always agree and writers on unrelated stripes do not wait on each other
+// the space owns its term dictionary, nothing else writes to it and it is only read from outside once the writers are done
+public class ConcurrentGraphSpace {
+    private static final int SEGMENT_BITS = 10;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+
+    private static final class Node {
+        private final int id;
+        private int @NotNull [] neighbours = new int[0];
+        private int @NotNull [] positives = new int[0];
+        private int @NotNull [] negatives = new int[0];
+        private int degree = 0;
+
+        private Node(int id) {
+            this.id = id;
+        }
+    }
+
+    private final @NotNull TermDictionary terms = new TermDictionary();
+    private final @NotNull GraphSpace.Mode mode;
+    private final @NotNull ConcurrentHashMap<String, Integer> nodes = new ConcurrentHashMap<>();
+    private final @NotNull ReentrantLock @NotNull [] locks;
+    private final int mask;
+    private volatile Node @NotNull [] @NotNull [] segments = new Node[1][];
+    private volatile int size = 0;
+    private final @NotNull LongAdder edges = new LongAdder();
+
+    private final @NotNull LongAdder acquisitions = new LongAdder();
+    private final @NotNull LongAdder contentions = new LongAdder();
+
+    public ConcurrentGraphSpace() {
+        this(GraphSpace.Mode.OVERWRITE, Runtime.getRuntime().availableProcessors() * 16);
+    }
+
+    public ConcurrentGraphSpace(@NotNull GraphSpace.Mode mode, int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("Invalid stripes: " + stripes);
+        }
+        this.mode = mode;
+        final int count = Integer.highestOneBit(stripes - 1) << 1;
+        this.locks = new ReentrantLock[Math.max(1, count)];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = locks.length - 1;
+        this.segments[0] = new Node[SEGMENT_SIZE];
+    }
+
+    // node of the word, registered when absent, concurrent calls for the same word get the same node
+    public int emplace(@NotNull String word) {
+        final Integer node = nodes.get(word);
+        if (node != null) {
+            return node;
+        }
+        return nodes.computeIfAbsent(word, this::register);
+    }
+
+    // the only lock around registration: computeIfAbsent serialises a word but not different words,
+    // and both the dictionary and the segments take one new node at a time
+    private synchronized int register(@NotNull String word) {
+        final int id = terms.id(word);
+        final int index = size;
+        final int segment = index >>> SEGMENT_BITS;
+        Node[][] current = segments;
+        if (segment == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+            current[segment] = new Node[SEGMENT_SIZE];
+            segments = current;
+        } else if (current[segment] == null) {
+            current[segment] = new Node[SEGMENT_SIZE];
+        }
+        current[segment][index & (SEGMENT_SIZE - 1)] = new Node(id);
+        size = index + 1;
+        return index;
+    }
+
+    public boolean contains(@NotNull String word) {
+        return nodes.containsKey(word);
+    }
+
+    public int getIndex(@NotNull String word) {
+        final Integer node = nodes.get(word);
+        return node == null ? -1 : node;
+    }
+
+    private @NotNull Node node(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Unknown node: " + index);
+        }
+        return segments[index >>> SEGMENT_BITS][index & (SEGMENT_SIZE - 1)];
+    }
+
+    private @NotNull ReentrantLock lock(int index) {
+        final ReentrantLock lock = locks[index & mask];
+        acquisitions.increment();
+        if (!lock.tryLock()) {
+            contentions.increment();
+            lock.lock();
+        }
+        return lock;
+    }
+
+    // both words are registered when absent
+    public void setLink(@NotNull String word1, @NotNull String word2, int weight) {
+        setLink(emplace(word1), emplace(word2), weight);
+    }
+
+    public void setLink(int windex, int index, int weight) {
+        final Node a = node(windex);
+        final Node b = node(index);
+        final int first = Math.min(windex & mask, index & mask);
+        final int second = Math.max(windex & mask, index & mask);
+        final ReentrantLock lock = lock(first);
+        final ReentrantLock other = first != second ? lock(second) : null;
+        try {
+            if (put(a, index, weight)) {
+                edges.increment();
+            }
+            if (windex != index) {
+                put(b, windex, weight);
+            }
+        } finally {
+            if (other != null) {
+                other.unlock();
+            }
+            lock.unlock();
+        }
+    }
+
+    // caller holds the stripe lock of the node
+    private boolean put(@NotNull Node node, int neighbour, int weight) {
+        int at = Arrays.binarySearch(node.neighbours, 0, node.degree, neighbour);
+        final boolean created = at < 0;
+        if (created) {
+            at = -at - 1;
+            if (node.degree == node.neighbours.length) {
+                final int capacity = Math.max(4, node.degree * 2);
+                node.neighbours = Arrays.copyOf(node.neighbours, capacity);
+                node.positives = Arrays.copyOf(node.positives, capacity);
+                node.negatives = Arrays.copyOf(node.negatives, capacity);
+            }
+            final int moved = node.degree - at;
+            System.arraycopy(node.neighbours, at, node.neighbours, at + 1, moved);
+            System.arraycopy(node.positives, at, node.positives, at + 1, moved);
+            System.arraycopy(node.negatives, at, node.negatives, at + 1, moved);
+            node.neighbours[at] = neighbour;
+            node.positives[at] = 0;
+            node.negatives[at] = 0;
+            node.degree++;
+        }
+        if (mode == GraphSpace.Mode.OVERWRITE) {
+            node.positives[at] = Math.max(weight, 0);
+            node.negatives[at] = Math.max(-weight, 0);
+        } else {
+            node.positives[at] += Math.max(weight, 0);
+            node.negatives[at] += Math.max(-weight, 0);
+        }
+        return created;
+    }
+
+    // signed score of the link, 0 when the nodes are not linked
+    public int getLink(int windex, int index) {
+        final Node node = node(windex);
+        final ReentrantLock lock = lock(windex);
+        try {
+            final int at = Arrays.binarySearch(node.neighbours, 0, node.degree, index);
+            return at >= 0 ? node.positives[at] - node.negatives[at] : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getDegree(int index) {
+        final Node node = node(index);
+        final ReentrantLock lock = lock(index);
+        try {
+            return node.degree;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // the links are copied under the stripe lock, the visitor runs without holding it
+    public void forEachLink(int index, @NotNull GraphSpace.LinkVisitor visitor) throws IOException {
+        final Node node = node(index);
+        final int[] neighbours;
+        final int[] positives;
+        final int[] negatives;
+        final ReentrantLock lock = lock(index);
+        try {
+            neighbours = Arrays.copyOf(node.neighbours, node.degree);
+            positives = Arrays.copyOf(node.positives, node.degree);
+            negatives = Arrays.copyOf(node.negatives, node.degree);
+        } finally {
+            lock.unlock();
+        }
+        for (int e = 0; e < neighbours.length; e++) {
+            visitor.visit(neighbours[e], positives[e], negatives[e]);
+        }
+    }
+
+    public @NotNull TermDictionary getTerms() {
+        return terms;
+    }
+
+    // consistent per node, links written while the snapshot runs may appear on one end only
+    public @NotNull GraphSnapshot snapshot() {
+        final int count = size;
+        final int[] ids = new int[count];
+        final int[] offsets = new int[count + 1];
+        final int[][] neighbours = new int[count][];
+        final int[][] positives = new int[count][];
+        final int[][] negatives = new int[count][];
+        for (int i = 0; i < count; i++) {
+            final Node node = node(i);
+            final ReentrantLock lock = lock(i);
+            try {
+                ids[i] = node.id;
+                neighbours[i] = Arrays.copyOf(node.neighbours, node.degree);
+                positives[i] = Arrays.copyOf(node.positives, node.degree);
+                negatives[i] = Arrays.copyOf(node.negatives, node.degree);
+            } finally {
+                lock.unlock();
+            }
+            offsets[i + 1] = offsets[i] + neighbours[i].length;
+        }
+        final int[] targets = new int[offsets[count]];
+        final int[] positive = new int[offsets[count]];
+        final int[] negative = new int[offsets[count]];
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(neighbours[i], 0, targets, offsets[i], neighbours[i].length);
+            System.arraycopy(positives[i], 0, positive, offsets[i], positives[i].length);
+            System.arraycopy(negatives[i], 0, negative, offsets[i], negatives[i].length);
+        }
+        return new GraphSnapshot(terms, ids, offsets, targets, positive, negative);
+    }
+
+    public int idAt(int index) {
+        return node(index).id;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int edgeCount() {
+        return edges.intValue();
+    }
+
+    public @NotNull GraphSpace.Mode getMode() {
+        return mode;
+    }
+
+    public int getStripes() {
+        return locks.length;
+    }
+
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    // acquisitions that found their stripe already held
+    public long getContentions() {
+        return contentions.sum();
+    }
+
+    public double getContentionRate() {
+        final long total = acquisitions.sum();
+        return total == 0 ? 0 : (double) contentions.sum() / total;
+    }
+
+    public void resetCounters() {
+        acquisitions.reset();
+        contentions.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrentGraphSpace{" +
+                "mode=" + mode +
+                ", nodes=" + size +
+                ", edges=" + edges.sum() +
+                ", stripes=" + locks.length +
+                ", contentionRate=" + getContentionRate() +
+                '}';
+    }
+}
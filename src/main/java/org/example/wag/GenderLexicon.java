@@ -0,0 +1,84 @@
+package org.example.wag;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// first name lexicons used to guess the gender of a subject, loaded once and shared by every world
+public class GenderLexicon {
+    public static final @NotNull Path MALE = Path.of("male.txt");
+    public static final @NotNull Path FEMALE = Path.of("female.txt");
+
+    private static volatile GenderLexicon shared = null;
+
+    private final @NotNull Lexicon male;
+    private final @NotNull Lexicon female;
+
+    public GenderLexicon(@NotNull Lexicon male, @NotNull Lexicon female) {
+        this.male = male;
+        this.female = female;
+    }
+
+    public static @NotNull GenderLexicon load(@NotNull Path male, @NotNull Path female) throws IOException {
+        return new GenderLexicon(Lexicon.load(male), Lexicon.load(female));
+    }
+
+    // male.txt and female.txt of the working directory, loaded on first use, a missing file gives an empty lexicon
+    public static @NotNull GenderLexicon getDefault() {
+        GenderLexicon lexicon = shared;
+        if (lexicon == null) {
+            synchronized (GenderLexicon.class) {
+                lexicon = shared;
+                if (lexicon == null) {
+                    lexicon = new GenderLexicon(loadOrEmpty(MALE), loadOrEmpty(FEMALE));
+                    shared = lexicon;
+                }
+            }
+        }
+        return lexicon;
+    }
+
+    // replaces the lexicon used by Subject.findGenderFromName, e.g. with a larger name database
+    public static void setDefault(@NotNull GenderLexicon lexicon) {
+        shared = lexicon;
+    }
+
+    private static @NotNull Lexicon loadOrEmpty(@NotNull Path path) {
+        if (!Files.exists(path)) {
+            return new Lexicon();
+        }
+        try {
+            return Lexicon.load(path);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new Lexicon();
+        }
+    }
+
+    public @NotNull Subject.Gender genderOf(@NotNull String name) {
+        if (male.contains(name)) {
+            return Subject.Gender.MALE;
+        } else if (female.contains(name)) {
+            return Subject.Gender.FEMALE;
+        }
+        return Subject.Gender.NEUTRAL;
+    }
+
+    public @NotNull Lexicon getMale() {
+        return male;
+    }
+
+    public @NotNull Lexicon getFemale() {
+        return female;
+    }
+
+    @Override
+    public String toString() {
+        return "GenderLexicon{" +
+                "male=" + male +
+                ", female=" + female +
+                '}';
+    }
+}
@@ -0,0 +1,205 @@
+package org.example.wag;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// degree centrality and PageRank over a GraphSnapshot, the work is split in node blocks run on the common fork-join pool
+// links rejected by the filter are ignored, by default negated links ("apple is not red") do not carry rank
+public class GraphCentrality {
+    public static final double DEFAULT_DAMPING = 0.85;
+    public static final double DEFAULT_TOLERANCE = 1e-6;
+    public static final int DEFAULT_ITERATIONS = 100;
+
+    private static final int BLOCK = 4096;
+
+    private final @NotNull GraphSnapshot graph;
+    private @NotNull GraphQuery.EdgeFilter filter = GraphQuery.POSITIVE;
+    private double damping = DEFAULT_DAMPING;
+    private double tolerance = DEFAULT_TOLERANCE;
+    private int iterations = DEFAULT_ITERATIONS;
+
+    private int lastIterations = 0;
+    private double lastDelta = 0;
+
+    public GraphCentrality(@NotNull GraphSnapshot graph) {
+        this.graph = graph;
+    }
+
+    public GraphCentrality(@NotNull GraphSpace space) {
+        this(space.snapshot());
+    }
+
+    public GraphCentrality(@NotNull SubjectGraph graph) {
+        this(graph.snapshot());
+    }
+
+    public GraphCentrality filter(@NotNull GraphQuery.EdgeFilter filter) {
+        this.filter = filter;
+        return this;
+    }
+
+    public GraphCentrality damping(double damping) {
+        if (damping < 0 || damping > 1) {
+            throw new IllegalArgumentException("Invalid damping: " + damping);
+        }
+        this.damping = damping;
+        return this;
+    }
+
+    // stop once the L1 distance between two iterations falls below the tolerance
+    public GraphCentrality tolerance(double tolerance) {
+        if (tolerance < 0) {
+            throw new IllegalArgumentException("Invalid tolerance: " + tolerance);
+        }
+        this.tolerance = tolerance;
+        return this;
+    }
+
+    public GraphCentrality iterations(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Invalid iterations: " + iterations);
+        }
+        this.iterations = iterations;
+        return this;
+    }
+
+    // accepted links of each node
+    public int @NotNull [] degrees() {
+        final int[] degrees = new int[graph.size()];
+        blocks(graph.size()).forEach(block -> {
+            for (int node = block * BLOCK, end = Math.min(graph.size(), node + BLOCK); node < end; node++) {
+                int degree = 0;
+                for (int e = graph.begin(node), last = graph.end(node); e < last; e++) {
+                    if (filter.accept(graph, e)) {
+                        degree++;
+                    }
+                }
+                degrees[node] = degree;
+            }
+        });
+        return degrees;
+    }
+
+    // accepted links over the amount of other nodes, in [0, 1]
+    public double @NotNull [] degreeCentrality() {
+        final int[] degrees = degrees();
+        final double[] centrality = new double[degrees.length];
+        final double others = Math.max(1, degrees.length - 1);
+        for (int i = 0; i < degrees.length; i++) {
+            centrality[i] = degrees[i] / others;
+        }
+        return centrality;
+    }
+
+    // power iteration, the rank of nodes without accepted links is spread evenly, ranks sum to 1
+    public double @NotNull [] pageRank() {
+        final int size = graph.size();
+        lastIterations = 0;
+        lastDelta = 0;
+        if (size == 0) {
+            return new double[0];
+        }
+        // the accepted links are copied once into a compact CSR so the iterations do not evaluate the filter again
+        final int[] degrees = degrees();
+        final int[] offsets = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            offsets[i + 1] = offsets[i] + degrees[i];
+        }
+        final int[] targets = new int[offsets[size]];
+        blocks(size).forEach(block -> {
+            for (int node = block * BLOCK, end = Math.min(size, node + BLOCK); node < end; node++) {
+                int at = offsets[node];
+                for (int e = graph.begin(node), last = graph.end(node); e < last; e++) {
+                    if (filter.accept(graph, e)) {
+                        targets[at++] = graph.target(e);
+                    }
+                }
+            }
+        });
+
+        double[] ranks = new double[size];
+        double[] next = new double[size];
+        final double[] shares = new double[size];
+        Arrays.fill(ranks, 1.0 / size);
+
+        while (lastIterations < iterations) {
+            final double[] current = ranks;
+            final double[] updated = next;
+            final double dangling = blocks(size).mapToDouble(block -> {
+                double sum = 0;
+                for (int node = block * BLOCK, end = Math.min(size, node + BLOCK); node < end; node++) {
+                    if (degrees[node] == 0) {
+                        shares[node] = 0;
+                        sum += current[node];
+                    } else {
+                        shares[node] = current[node] / degrees[node];
+                    }
+                }
+                return sum;
+            }).sum();
+
+            final double base = (1 - damping) / size + damping * dangling / size;
+            // links are undirected, so pulling from the neighbours reads the same entries a push would write
+            lastDelta = blocks(size).mapToDouble(block -> {
+                double delta = 0;
+                for (int node = block * BLOCK, end = Math.min(size, node + BLOCK); node < end; node++) {
+                    double sum = 0;
+                    for (int e = offsets[node], last = offsets[node + 1]; e < last; e++) {
+                        sum += shares[targets[e]];
+                    }
+                    updated[node] = base + damping * sum;
+                    delta += Math.abs(updated[node] - current[node]);
+                }
+                return delta;
+            }).sum();
+
+            next = ranks;
+            ranks = updated;
+            lastIterations++;
+            if (lastDelta < tolerance) {
+                break;
+            }
+        }
+        return ranks;
+    }
+
+    // nodes of the k best scores, best first
+    public static int @NotNull [] top(double @NotNull [] scores, int k) {
+        final TopK top = new TopK(Math.min(k, scores.length));
+        for (int i = 0; i < scores.length; i++) {
+            top.offer(i, scores[i]);
+        }
+        final int[] nodes = new int[top.size()];
+        top.drain(nodes, new double[nodes.length]);
+        return nodes;
+    }
+
+    public int getLastIterations() {
+        return lastIterations;
+    }
+
+    public double getLastDelta() {
+        return lastDelta;
+    }
+
+    public boolean hasConverged() {
+        return lastIterations > 0 && lastDelta < tolerance;
+    }
+
+    private static @NotNull IntStream blocks(int size) {
+        return IntStream.range(0, (size + BLOCK - 1) / BLOCK).parallel();
+    }
+
+    @Override
+    public String toString() {
+        return "GraphCentrality{" +
+                "damping=" + damping +
+                ", tolerance=" + tolerance +
+                ", iterations=" + iterations +
+                ", lastIterations=" + lastIterations +
+                ", lastDelta=" + lastDelta +
+                '}';
+    }
+}
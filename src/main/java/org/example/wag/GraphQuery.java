@@ -0,0 +1,230 @@
+package org.example.wag;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+// neighbourhood and path queries over a GraphSnapshot
+// visited marks are generation stamps and the frontiers are preallocated, so a query allocates its result only
+// a GraphQuery is not thread safe, use one per thread over the same snapshot
+public class GraphQuery {
+    @FunctionalInterface
+    public interface EdgeFilter {
+        boolean accept(@NotNull GraphSnapshot graph, int entry);
+    }
+
+    public static final @NotNull EdgeFilter ALL = (graph, entry) -> true;
+    // skips the links whose score is negative ("apple is not red") or balanced
+    public static final @NotNull EdgeFilter POSITIVE = (graph, entry) -> graph.weight(entry) > 0;
+    public static final @NotNull EdgeFilter NEGATIVE = (graph, entry) -> graph.weight(entry) < 0;
+
+    public static @NotNull EdgeFilter confident(double confidence, int support) {
+        return (graph, entry) -> graph.weight(entry) > 0 && graph.support(entry) >= support && graph.confidence(entry) >= confidence;
+    }
+
+    private final @NotNull GraphSnapshot graph;
+    private final int @NotNull [] seen;
+    private final int @NotNull [] seenBack;
+    private final int @NotNull [] parents;
+    private final int @NotNull [] parentsBack;
+    private final int @NotNull [] queue;
+    private final int @NotNull [] queueBack;
+    private int generation = 0;
+    private int expanded = 0; // end of the frontier after the last expand
+
+    public GraphQuery(@NotNull GraphSnapshot graph) {
+        this.graph = graph;
+        final int size = graph.size();
+        this.seen = new int[size];
+        this.seenBack = new int[size];
+        this.parents = new int[size];
+        this.parentsBack = new int[size];
+        this.queue = new int[size];
+        this.queueBack = new int[size];
+    }
+
+    public GraphQuery(@NotNull GraphSpace space) {
+        this(space.snapshot());
+    }
+
+    public GraphQuery(@NotNull SubjectGraph graph) {
+        this(graph.snapshot());
+    }
+
+    public @NotNull GraphSnapshot getGraph() {
+        return graph;
+    }
+
+    private int nextGeneration() {
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(seen, 0);
+            Arrays.fill(seenBack, 0);
+            generation = 0;
+        }
+        return ++generation;
+    }
+
+    private void checkNode(int node) {
+        if (node < 0 || node >= graph.size()) {
+            throw new IndexOutOfBoundsException("Unknown node: " + node);
+        }
+    }
+
+    // nodes reachable in 1 to `hops` steps, in breadth first order, the source is left out
+    public int @NotNull [] neighbourhood(int source, int hops, @NotNull EdgeFilter filter) {
+        checkNode(source);
+        if (hops < 0) {
+            throw new IllegalArgumentException("Invalid hops: " + hops);
+        }
+        final int stamp = nextGeneration();
+        seen[source] = stamp;
+        queue[0] = source;
+        int head = 0;
+        int tail = 1;
+        for (int depth = 0; depth < hops && head < tail; depth++) {
+            final int level = tail;
+            while (head < level) {
+                final int node = queue[head++];
+                for (int e = graph.begin(node), end = graph.end(node); e < end; e++) {
+                    final int next = graph.target(e);
+                    if (seen[next] != stamp && filter.accept(graph, e)) {
+                        seen[next] = stamp;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+        return Arrays.copyOfRange(queue, 1, tail);
+    }
+
+    public int @NotNull [] neighbourhood(int source, int hops) {
+        return neighbourhood(source, hops, ALL);
+    }
+
+    public String @NotNull [] neighbourhood(@NotNull String word, int hops, @NotNull EdgeFilter filter) {
+        final int source = graph.node(word);
+        if (source == -1) {
+            return new String[0];
+        }
+        return words(neighbourhood(source, hops, filter));
+    }
+
+    // one of the shortest paths from source to target, both included, empty when they are not connected
+    // both ends grow a breadth first frontier, the smaller one is expanded first
+    public int @NotNull [] shortestPath(int source, int target, @NotNull EdgeFilter filter) {
+        checkNode(source);
+        checkNode(target);
+        if (source == target) {
+            return new int[]{source};
+        }
+        final int stamp = nextGeneration();
+        seen[source] = stamp;
+        parents[source] = -1;
+        seenBack[target] = stamp;
+        parentsBack[target] = -1;
+        queue[0] = source;
+        queueBack[0] = target;
+        int head = 0, tail = 1;
+        int headBack = 0, tailBack = 1;
+
+        while (head < tail && headBack < tailBack) {
+            final int meet;
+            if (tail - head <= tailBack - headBack) {
+                final int level = tail;
+                meet = expand(queue, head, level, seen, parents, seenBack, stamp, filter);
+                tail = expanded;
+                head = level;
+            } else {
+                final int level = tailBack;
+                meet = expand(queueBack, headBack, level, seenBack, parentsBack, seen, stamp, filter);
+                tailBack = expanded;
+                headBack = level;
+            }
+            if (meet != -1) {
+                return path(meet);
+            }
+        }
+        return new int[0];
+    }
+
+    public int @NotNull [] shortestPath(int source, int target) {
+        return shortestPath(source, target, ALL);
+    }
+
+    public String @NotNull [] shortestPath(@NotNull String source, @NotNull String target, @NotNull EdgeFilter filter) {
+        final int from = graph.node(source);
+        final int to = graph.node(target);
+        if (from == -1 || to == -1) {
+            return new String[0];
+        }
+        return words(shortestPath(from, to, filter));
+    }
+
+    // number of links on the shortest path, -1 when not connected
+    public int distance(int source, int target, @NotNull EdgeFilter filter) {
+        return shortestPath(source, target, filter).length - 1;
+    }
+
+    // expands one whole level of a frontier, returns the node where both searches meet or -1
+    private int expand(int @NotNull [] frontier, int head, int level, int @NotNull [] mine, int @NotNull [] links, int @NotNull [] other, int stamp, @NotNull EdgeFilter filter) {
+        int end = level;
+        int meet = -1;
+        for (int i = head; i < level && meet == -1; i++) {
+            final int node = frontier[i];
+            for (int e = graph.begin(node), last = graph.end(node); e < last; e++) {
+                final int next = graph.target(e);
+                if (mine[next] == stamp || !filter.accept(graph, e)) {
+                    continue;
+                }
+                mine[next] = stamp;
+                links[next] = node;
+                frontier[end++] = next;
+                if (other[next] == stamp) {
+                    meet = next;
+                    break;
+                }
+            }
+        }
+        expanded = end;
+        return meet;
+    }
+
+    private int @NotNull [] path(int meet) {
+        int length = 0;
+        for (int node = meet; node != -1; node = parents[node]) {
+            length++;
+        }
+        for (int node = parentsBack[meet]; node != -1; node = parentsBack[node]) {
+            length++;
+        }
+        final int[] path = new int[length];
+        int i = 0;
+        for (int node = meet; node != -1; node = parents[node]) {
+            path[i++] = node;
+        }
+        for (int a = 0, b = i - 1; a < b; a++, b--) {
+            final int swap = path[a];
+            path[a] = path[b];
+            path[b] = swap;
+        }
+        for (int node = parentsBack[meet]; node != -1; node = parentsBack[node]) {
+            path[i++] = node;
+        }
+        return path;
+    }
+
+    private String @NotNull [] words(int @NotNull [] nodes) {
+        final String[] words = new String[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            words[i] = graph.word(nodes[i]);
+        }
+        return words;
+    }
+
+    @Override
+    public String toString() {
+        return "GraphQuery{" +
+                "graph=" + graph +
+                '}';
+    }
+}
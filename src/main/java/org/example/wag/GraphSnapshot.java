@@ -0,0 +1,116 @@
+package org.example.wag;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+// immutable compressed sparse row view of a GraphSpace, the links of node i are the entries [offsets[i], offsets[i + 1])
+public class GraphSnapshot {
+    private final @NotNull TermDictionary terms;
+    private final int @NotNull [] ids;
+    private final int @NotNull [] offsets;
+    private final int @NotNull [] targets;
+    private final int @NotNull [] positives;
+    private final int @NotNull [] negatives;
+    private final @NotNull IntIndex nodes; // term id -> first node holding it
+
+    GraphSnapshot(@NotNull TermDictionary terms, int @NotNull [] ids, int @NotNull [] offsets, int @NotNull [] targets, int @NotNull [] positives, int @NotNull [] negatives) {
+        this.terms = terms;
+        this.ids = ids;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.positives = positives;
+        this.negatives = negatives;
+        this.nodes = new IntIndex(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            nodes.putIfAbsent(ids[i], i);
+        }
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    // directed entries, every undirected link appears once per end
+    public int entries() {
+        return targets.length;
+    }
+
+    public int begin(int node) {
+        return offsets[node];
+    }
+
+    public int end(int node) {
+        return offsets[node + 1];
+    }
+
+    public int degree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+
+    public int target(int entry) {
+        return targets[entry];
+    }
+
+    // signed score of the entry
+    public int weight(int entry) {
+        return positives[entry] - negatives[entry];
+    }
+
+    public int positive(int entry) {
+        return positives[entry];
+    }
+
+    public int negative(int entry) {
+        return negatives[entry];
+    }
+
+    public int support(int entry) {
+        return positives[entry] + negatives[entry];
+    }
+
+    public double confidence(int entry) {
+        return GraphSpace.confidence(positives[entry], negatives[entry]);
+    }
+
+    // entry of the link, or a negative value when the nodes are not linked
+    public int entry(int node, int neighbour) {
+        return Arrays.binarySearch(targets, offsets[node], offsets[node + 1], neighbour);
+    }
+
+    // signed score of the link, 0 when the nodes are not linked
+    public int weight(int node, int neighbour) {
+        final int at = entry(node, neighbour);
+        return at >= 0 ? weight(at) : 0;
+    }
+
+    public int @NotNull [] neighbours(int node) {
+        return Arrays.copyOfRange(targets, offsets[node], offsets[node + 1]);
+    }
+
+    // node of the word, -1 when absent
+    public int node(@NotNull String word) {
+        final int id = terms.find(word);
+        return id == -1 ? -1 : nodes.get(id);
+    }
+
+    public int id(int node) {
+        return ids[node];
+    }
+
+    public @NotNull String word(int node) {
+        return terms.term(ids[node]);
+    }
+
+    public @NotNull TermDictionary terms() {
+        return terms;
+    }
+
+    @Override
+    public String toString() {
+        return "GraphSnapshot{" +
+                "nodes=" + ids.length +
+                ", entries=" + targets.length +
+                '}';
+    }
+}
@@ -2,135 +2,255 @@ package org.example.wag;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+// undirected weighted graph built edge by edge, each node keeps its neighbours sorted with their evidence alongside
+// memory grows with the edge count, snapshot() freezes the adjacency into a compact CSR layout for reads
+// a link weight is the signed score positive - negative, OVERWRITE keeps the last write only, ACCUMULATE sums every write
 public class GraphSpace {
-    private int @NotNull [] @NotNull [] weights = new int[0][];
-    private int @NotNull [] hashes = new int[0];
+    public enum Mode {
+        OVERWRITE,
+        ACCUMULATE
+    }
+
+    @FunctionalInterface
+    public interface LinkVisitor {
+        void visit(int neighbour, int positive, int negative) throws IOException;
+    }
+
+    private final @NotNull Mode mode;
+    private int @NotNull [] ids = new int[16];
+    private int @NotNull [] @NotNull [] neighbours = new int[16][];
+    private int @NotNull [] @NotNull [] positives = new int[16][];
+    private int @NotNull [] @NotNull [] negatives = new int[16][];
+    private int @NotNull [] degrees = new int[16];
+    private int size = 0;
+    private int edges = 0;
+    private final @NotNull IntIndex nodes = new IntIndex(); // term id -> first node holding it
+    private final @NotNull TermDictionary terms;
+
+    public GraphSpace(@NotNull TermDictionary terms) {
+        this(terms, Mode.OVERWRITE);
+    }
+
+    public GraphSpace(@NotNull TermDictionary terms, @NotNull Mode mode) {
+        this.terms = terms;
+        this.mode = mode;
+    }
 
     public GraphSpace emplace(@NotNull String word) {
-        hashes = Arrays.copyOf(hashes, hashes.length + 1);
-        hashes[hashes.length - 1] = word.hashCode();
-        weights = Arrays.copyOf(weights, weights.length + 1);
-        weights[weights.length - 1] = new int[0];
-        return this;
+        return emplace(word, 0);
     }
 
     public GraphSpace emplace(@NotNull String word, int initialCapacity) {
-        hashes = Arrays.copyOf(hashes, hashes.length + 1);
-        hashes[hashes.length - 1] = word.hashCode();
-        weights = Arrays.copyOf(weights, weights.length + 1);
-        weights[weights.length - 1] = new int[initialCapacity];
+        final int id = terms.id(word);
+        if (size == ids.length) {
+            final int capacity = Math.max(16, size * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            neighbours = Arrays.copyOf(neighbours, capacity);
+            positives = Arrays.copyOf(positives, capacity);
+            negatives = Arrays.copyOf(negatives, capacity);
+            degrees = Arrays.copyOf(degrees, capacity);
+        }
+        ids[size] = id;
+        neighbours[size] = new int[initialCapacity];
+        positives[size] = new int[initialCapacity];
+        negatives[size] = new int[initialCapacity];
+        nodes.putIfAbsent(id, size);
+        size++;
         return this;
     }
 
     public boolean contains(@NotNull String word) {
-        int hash = word.hashCode();
-        for (int h : hashes) {
-            if (h == hash) {
-                return true;
-            }
-        }
-        return false;
+        return getIndex(word) != -1;
     }
 
     public void setLink(@NotNull String word1, @NotNull String word2, int weight) {
-        final int windex = Arrays.stream(hashes).boxed().toList().indexOf(word1.hashCode());
-        final int index = Arrays.stream(hashes).boxed().toList().indexOf(word2.hashCode());
-        int max = Math.max(windex, index);
-        if (max >= weights.length) {
-            weights = Arrays.copyOf(weights, max + 1);
-        }
-        if (index >= weights[windex].length) {
-            weights[windex] = Arrays.copyOf(weights[windex], index + 1);
-        }
-        if (windex >= weights[index].length) {
-            weights[index] = Arrays.copyOf(weights[index], windex + 1);
-        }
-        weights[windex][index] = weight;
-        weights[index][windex] = weight;
+        setLink(getIndex(word1), getIndex(word2), weight);
     }
 
     public void setLink(int windex, @NotNull String word2, int weight) {
-        final int index = Arrays.stream(hashes).boxed().toList().indexOf(word2.hashCode());
-        int max = Math.max(windex, index);
-        if (max >= weights.length) {
-            weights = Arrays.copyOf(weights, max + 1);
-        }
-        if (index >= weights[windex].length) {
-            weights[windex] = Arrays.copyOf(weights[windex], index + 1);
-        }
-        if (windex >= weights[index].length) {
-            weights[index] = Arrays.copyOf(weights[index], windex + 1);
-        }
-        weights[windex][index] = weight;
-        weights[index][windex] = weight;
+        setLink(windex, getIndex(word2), weight);
     }
 
     public void setLink(@NotNull String word1, int index, int weight) {
-        final int windex = Arrays.stream(hashes).boxed().toList().indexOf(word1.hashCode());
-        int max = Math.max(windex, index);
-        if (max >= weights.length) {
-            weights = Arrays.copyOf(weights, max + 1);
+        setLink(getIndex(word1), index, weight);
+    }
+
+    public void setLink(int windex, int index, int weight) {
+        if (windex < 0 || windex >= size || index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Unknown link: " + windex + " -> " + index);
         }
-        if (index >= weights[windex].length) {
-            weights[windex] = Arrays.copyOf(weights[windex], index + 1);
+        if (put(windex, index, weight)) {
+            edges++;
         }
-        if (windex >= weights[index].length) {
-            weights[index] = Arrays.copyOf(weights[index], windex + 1);
+        if (windex != index) {
+            put(index, windex, weight);
         }
-        weights[windex][index] = weight;
-        weights[index][windex] = weight;
     }
 
-    public void setLink(int windex, int index, int weight) {
-        int max = Math.max(windex, index);
-        if (max >= weights.length) {
-            weights = Arrays.copyOf(weights, max + 1);
+    // true when the edge is new
+    private boolean put(int node, int neighbour, int weight) {
+        final int degree = degrees[node];
+        int at = Arrays.binarySearch(neighbours[node], 0, degree, neighbour);
+        final boolean created = at < 0;
+        if (created) {
+            at = -at - 1;
+            if (degree == neighbours[node].length) {
+                final int capacity = Math.max(4, degree * 2);
+                neighbours[node] = Arrays.copyOf(neighbours[node], capacity);
+                positives[node] = Arrays.copyOf(positives[node], capacity);
+                negatives[node] = Arrays.copyOf(negatives[node], capacity);
+            }
+            System.arraycopy(neighbours[node], at, neighbours[node], at + 1, degree - at);
+            System.arraycopy(positives[node], at, positives[node], at + 1, degree - at);
+            System.arraycopy(negatives[node], at, negatives[node], at + 1, degree - at);
+            neighbours[node][at] = neighbour;
+            positives[node][at] = 0;
+            negatives[node][at] = 0;
+            degrees[node] = degree + 1;
         }
-        if (index >= weights[windex].length) {
-            weights[windex] = Arrays.copyOf(weights[windex], index + 1);
+        if (mode == Mode.OVERWRITE) {
+            positives[node][at] = Math.max(weight, 0);
+            negatives[node][at] = Math.max(-weight, 0);
+        } else {
+            positives[node][at] += Math.max(weight, 0);
+            negatives[node][at] += Math.max(-weight, 0);
         }
-        if (windex >= weights[index].length) {
-            weights[index] = Arrays.copyOf(weights[index], windex + 1);
+        return created;
+    }
+
+    private int find(int windex, int index) {
+        return Arrays.binarySearch(neighbours[windex], 0, degrees[windex], index);
+    }
+
+    // signed score of the link, 0 when the nodes are not linked
+    public int getLink(int windex, int index) {
+        final int at = find(windex, index);
+        return at >= 0 ? positives[windex][at] - negatives[windex][at] : 0;
+    }
+
+    public int getPositive(int windex, int index) {
+        final int at = find(windex, index);
+        return at >= 0 ? positives[windex][at] : 0;
+    }
+
+    public int getNegative(int windex, int index) {
+        final int at = find(windex, index);
+        return at >= 0 ? negatives[windex][at] : 0;
+    }
+
+    // amount of evidence seen for the link
+    public int getSupport(int windex, int index) {
+        final int at = find(windex, index);
+        return at >= 0 ? positives[windex][at] + negatives[windex][at] : 0;
+    }
+
+    // share of the evidence agreeing with the sign of the score, in [0, 1], 0 when the nodes are not linked
+    public double getConfidence(int windex, int index) {
+        final int at = find(windex, index);
+        return at >= 0 ? confidence(positives[windex][at], negatives[windex][at]) : 0;
+    }
+
+    static double confidence(int positive, int negative) {
+        final int support = positive + negative;
+        return support == 0 ? 0 : (double) Math.abs(positive - negative) / support;
+    }
+
+    // node indices linked to the word, ascending
+    public int[] getNeighbours(@NotNull String word) {
+        final int index = getIndex(word);
+        if (index == -1) {
+            return null;
         }
-        weights[windex][index] = weight;
-        weights[index][windex] = weight;
+        return Arrays.copyOf(neighbours[index], degrees[index]);
     }
 
+    // signed scores of the links of the word, aligned with getNeighbours
     public int[] getWeights(@NotNull String word) {
-        int index = Arrays.stream(hashes).boxed().toList().indexOf(word.hashCode());
-        if (index >= weights.length) {
+        final int index = getIndex(word);
+        if (index == -1) {
             return null;
         }
-        return weights[index];
+        final int[] weights = new int[degrees[index]];
+        for (int e = 0; e < weights.length; e++) {
+            weights[e] = positives[index][e] - negatives[index][e];
+        }
+        return weights;
     }
 
     public int getIndex(@NotNull String word) {
-        return Arrays.stream(hashes).boxed().toList().indexOf(word.hashCode());
+        final int id = terms.find(word);
+        return id == -1 ? -1 : nodes.get(id);
+    }
+
+    public int getDegree(int index) {
+        return degrees[index];
+    }
+
+    // links of the node in ascending neighbour order, nothing is copied
+    public void forEachLink(int index, @NotNull LinkVisitor visitor) throws IOException {
+        for (int e = 0; e < degrees[index]; e++) {
+            visitor.visit(neighbours[index][e], positives[index][e], negatives[index][e]);
+        }
+    }
+
+    public @NotNull TermDictionary getTerms() {
+        return terms;
+    }
+
+    public @NotNull Mode getMode() {
+        return mode;
+    }
+
+    public int idAt(int index) {
+        return ids[index];
     }
 
     public int size() {
-        return hashes.length;
+        return size;
+    }
+
+    // undirected links, a self link counts once
+    public int edgeCount() {
+        return edges;
+    }
+
+    public @NotNull GraphSnapshot snapshot() {
+        final int[] offsets = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            offsets[i + 1] = offsets[i] + degrees[i];
+        }
+        final int[] targets = new int[offsets[size]];
+        final int[] positive = new int[offsets[size]];
+        final int[] negative = new int[offsets[size]];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(neighbours[i], 0, targets, offsets[i], degrees[i]);
+            System.arraycopy(positives[i], 0, positive, offsets[i], degrees[i]);
+            System.arraycopy(negatives[i], 0, negative, offsets[i], degrees[i]);
+        }
+        return new GraphSnapshot(terms, Arrays.copyOf(ids, size), offsets, targets, positive, negative);
     }
 
     @Override
     public String toString() {
-        return "HashGraphSpace{" +
-                "hashes=" + Arrays.toString(hashes) +
-                ", weights=" + Arrays.deepToString(weights) +
+        return "GraphSpace{" +
+                "mode=" + mode +
+                ", ids=" + Arrays.toString(Arrays.copyOf(ids, size)) +
+                ", links=" + IntStream.range(0, size).mapToObj(i -> IntStream.range(0, degrees[i]).mapToObj(e -> neighbours[i][e] + "=+" + positives[i][e] + "/-" + negatives[i][e]).collect(Collectors.joining(", ", "{", "}"))).collect(Collectors.joining(", ", "[", "]")) +
                 '}';
     }
 
     public String prettyString(@NotNull VocabSpace space) {
-        return Arrays.stream(hashes).mapToObj(h -> {
+        return Arrays.stream(ids, 0, size).mapToObj(h -> {
             final StringBuilder sb = new StringBuilder();
             final String word = space.getWord(h);
             sb.append(word).append(": ");
-            final int index = Arrays.stream(hashes).boxed().toList().indexOf(h);
-            sb.append(IntStream.range(0, weights[index].length).filter(i -> weights[index][i] != 0).mapToObj(i -> weights[index][i] == -1 ? "not " + space.getWord(hashes[i]) : space.getWord(hashes[i])).collect(Collectors.joining(", ", "[", "]")));
+            final int index = nodes.get(h);
+            sb.append(IntStream.range(0, degrees[index]).filter(e -> positives[index][e] != negatives[index][e]).mapToObj(e -> positives[index][e] < negatives[index][e] ? "not " + space.getWord(ids[neighbours[index][e]]) : space.getWord(ids[neighbours[index][e]])).collect(Collectors.joining(", ", "[", "]")));
             return sb.toString();
         }).collect(Collectors.joining("\n"));
     }
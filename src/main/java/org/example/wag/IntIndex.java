@@ -0,0 +1,130 @@
+package org.example.wag;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+// open addressing map from int keys to non-negative int values, linear probing, no boxing
+public class IntIndex {
+    private static final int EMPTY = -1;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int @NotNull [] keys;
+    private int @NotNull [] values;
+    private int mask;
+    private int size = 0;
+
+    public IntIndex() {
+        this(16);
+    }
+
+    public IntIndex(int expected) {
+        final int capacity = tableSize(expected);
+        this.keys = new int[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(values, EMPTY);
+    }
+
+    // value mapped to the key, or -1 when absent
+    public int get(int key) {
+        int slot = mix(key) & mask;
+        while (values[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != EMPTY;
+    }
+
+    public void put(int key, int value) {
+        insert(key, value, true);
+    }
+
+    // keeps the existing value, returns it, or -1 when the key was inserted
+    public int putIfAbsent(int key, int value) {
+        return insert(key, value, false);
+    }
+
+    private int insert(int key, int value, boolean replace) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Invalid value: " + value);
+        }
+        int slot = mix(key) & mask;
+        while (values[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                final int previous = values[slot];
+                if (replace) {
+                    values[slot] = value;
+                }
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > keys.length * LOAD_FACTOR) {
+            rehash(keys.length * 2);
+        }
+        return EMPTY;
+    }
+
+    public void ensureCapacity(int expected) {
+        final int capacity = tableSize(expected);
+        if (capacity > keys.length) {
+            rehash(capacity);
+        }
+    }
+
+    private void rehash(int capacity) {
+        final int[] oldKeys = keys;
+        final int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        Arrays.fill(values, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != EMPTY) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (values[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(values, EMPTY);
+        size = 0;
+    }
+
+    private static int tableSize(int expected) {
+        final int needed = (int) Math.min(1 << 30, (long) Math.ceil(Math.max(expected, 2) / LOAD_FACTOR));
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    // spreads consecutive ids and String hash codes over the table
+    private static int mix(int key) {
+        final int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        return "IntIndex{" +
+                "size=" + size +
+                ", capacity=" + keys.length +
+                '}';
+    }
+}
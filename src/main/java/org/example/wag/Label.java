@@ -4,145 +4,309 @@ import edu.stanford.nlp.ling.CoreLabel;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Label {
+    // Penn Treebank tags get stable codes, anything else is registered on first sight
+    private static final String @NotNull [] PENN_TAGS = {
+            "CC", "CD", "DT", "EX", "FW", "IN", "JJ", "JJR", "JJS", "LS", "MD", "NN", "NNS", "NNP", "NNPS",
+            "PDT", "POS", "PRP", "PRP$", "RB", "RBR", "RBS", "RP", "SYM", "TO", "UH", "VB", "VBD", "VBG",
+            "VBN", "VBP", "VBZ", "WDT", "WP", "WP$", "WRB", ".", ",", ":", "``", "''", "-LRB-", "-RRB-",
+            "#", "$", "HYPH", "NFP", "ADD", "AFX", "GW", "XX"
+    };
+    private static final @NotNull Map<String, Integer> tagCodes = new ConcurrentHashMap<>();
+    private static volatile String @NotNull [] tagNames = new String[0];
+    private static volatile int @NotNull [] tagClasses = new int[0];
+
+    // word lists of the class path, see src/main/resources/lexicon
+    public static final @NotNull Lexicon NOBILIARY_PARTICLES = Lexicon.bundled("lexicon/nobiliary-particles.txt");
+    public static final @NotNull Lexicon RELATIONSHIPS = Lexicon.bundled("lexicon/relationships.txt");
+
+    // word classes of a tag, decoded once per tag code so the predicates below are single bit tests
+    public static final int NOUN = 1;
+    public static final int COMMON_NOUN = 1 << 1;
+    public static final int PROPER_NOUN = 1 << 2;
+    public static final int VERB = 1 << 3;
+    public static final int ADJECTIVE = 1 << 4;
+    public static final int ADVERB = 1 << 5;
+    public static final int PRONOUN = 1 << 6;
+    public static final int POSSESSIVE_PRONOUN = 1 << 7;
+    public static final int PREPOSITION = 1 << 8;
+    public static final int DETERMINER = 1 << 9;
+    public static final int CONJUNCTION = 1 << 10;
+    public static final int MODAL = 1 << 11;
+    public static final int TO = 1 << 12;
+    public static final int PUNCTUATION = 1 << 13;
+    public static final int WH_PRONOUN = 1 << 14;
+    public static final int POSSESSIVE_ENDING = 1 << 15;
+
+    static {
+        for (String tag : PENN_TAGS) {
+            registerTag(tag);
+        }
+    }
+
+    public static int tagCode(@NotNull String tag) {
+        final Integer code = tagCodes.get(tag);
+        return code != null ? code : registerTag(tag);
+    }
+
+    public static @NotNull String tagName(int code) {
+        return tagNames[code];
+    }
+
+    public static int tagClasses(int code) {
+        return tagClasses[code];
+    }
+
+    public static int tagClasses(@NotNull String tag) {
+        return tagClasses[tagCode(tag)];
+    }
+
+    public static int tagCount() {
+        return tagNames.length;
+    }
+
+    private static synchronized int registerTag(@NotNull String tag) {
+        Integer code = tagCodes.get(tag);
+        if (code == null) {
+            if (tagNames.length > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("Too many distinct tags: " + tag);
+            }
+            code = tagNames.length;
+            final int[] classes = Arrays.copyOf(tagClasses, code + 1);
+            classes[code] = classesOf(tag);
+            tagClasses = classes;
+            final String[] names = Arrays.copyOf(tagNames, code + 1);
+            names[code] = tag;
+            tagNames = names;
+            tagCodes.put(tag, code);
+        }
+        return code;
+    }
+
+    private static int classesOf(@NotNull String tag) {
+        int classes = 0;
+        if (isNoun(tag)) {
+            classes |= NOUN;
+        }
+        if (isCommonNoun(tag)) {
+            classes |= COMMON_NOUN;
+        }
+        if (isProperNoun(tag)) {
+            classes |= PROPER_NOUN;
+        }
+        if (isVerb(tag)) {
+            classes |= VERB;
+        }
+        if (isAdjective(tag)) {
+            classes |= ADJECTIVE;
+        }
+        if (isAdverb(tag)) {
+            classes |= ADVERB;
+        }
+        if (isPronoun(tag)) {
+            classes |= PRONOUN;
+        }
+        if (isPossessivePronoun(tag)) {
+            classes |= POSSESSIVE_PRONOUN;
+        }
+        if (isPrepositionOrSubordinatingConjunction(tag)) {
+            classes |= PREPOSITION;
+        }
+        if (isDeterminer(tag)) {
+            classes |= DETERMINER;
+        }
+        if (isConjunction(tag)) {
+            classes |= CONJUNCTION;
+        }
+        if (isModalAuxiliary(tag)) {
+            classes |= MODAL;
+        }
+        if (isTo(tag)) {
+            classes |= TO;
+        }
+        if (isPunctuation(tag)) {
+            classes |= PUNCTUATION;
+        }
+        if (isWhPronoun(tag)) {
+            classes |= WH_PRONOUN;
+        }
+        if (isPossessiveEnding(tag)) {
+            classes |= POSSESSIVE_ENDING;
+        }
+        return classes;
+    }
+
     public static boolean isNoun(@NotNull CoreLabel label) {
-        return label.tag().startsWith("NN");
+        return (tagClasses(label.tag()) & NOUN) != 0;
+    }
+    public static boolean isNoun(@NotNull TokenBuffer tokens, int i) {
+        return (tokens.tagClasses(i) & NOUN) != 0;
+    }
+    private static boolean isNoun(@NotNull String tag) {
+        return tag.startsWith("NN");
     }
     public static boolean isCommonNoun(@NotNull CoreLabel label) {
-        return label.tag().startsWith("NN") && !label.tag().startsWith("NNP");
+        return (tagClasses(label.tag()) & COMMON_NOUN) != 0;
+    }
+    public static boolean isCommonNoun(@NotNull TokenBuffer tokens, int i) {
+        return (tokens.tagClasses(i) & COMMON_NOUN) != 0;
+    }
+    private static boolean isCommonNoun(@NotNull String tag) {
+        return tag.startsWith("NN") && !tag.startsWith("NNP");
     }
     public static boolean isProperNoun(@NotNull CoreLabel label) {
-        return label.tag().startsWith("NNP");
+        return (tagClasses(label.tag()) & PROPER_NOUN) != 0;
+    }
+    public static boolean isProperNoun(@NotNull TokenBuffer tokens, int i) {
+        return (tokens.tagClasses(i) & PROPER_NOUN) != 0;
+    }
+    private static boolean isProperNoun(@NotNull String tag) {
+        return tag.startsWith("NNP");
     }
     public static boolean isVerb(@NotNull CoreLabel label) {
-        return label.tag().startsWith("VB");
+        return (tagClasses(label.tag()) & VERB) != 0;
+    }
+    public static boolean isVerb(@NotNull TokenBuffer tokens, int i) {
+        return (tokens.tagClasses(i) & VERB) != 0;
+    }
+    private static boolean isVerb(@NotNull String tag) {
+        return tag.startsWith("VB");
     }
     public static boolean isAdjective(@NotNull CoreLabel label) {
-        return label.tag().startsWith("JJ");
+        return (tagClasses(label.tag()) & ADJECTIVE) != 0;
+    }
+    public static boolean isAdjective(@NotNull TokenBuffer tokens, int i) {
+        return (tokens.tagClasses(i) & ADJECTIVE) != 0;
+    }
+    private static boolean isAdjective(@NotNull String tag) {
+        return tag.startsWith("JJ");
     }
     public static boolean isAdverb(@NotNull CoreLabel label) {
-        return label.tag().startsWith("RB");
+        return (tagClasses(label.tag()) & ADVERB) != 0;
+    }
+    public static boolean isAdverb(@NotNull TokenBuffer tokens, int i) {
+        return (tokens.tagClasses(i) & ADVERB) != 0;
+    }
+    private static boolean isAdverb(@NotNull String tag) {
+        return tag.startsWith("RB");
     }
     public static boolean isPronoun(@NotNull CoreLabel label) {
-        return label.tag().startsWith("PRP");
+        return (tagClasses(label.tag()) & PRONOUN) != 0;
+    }
+    public static boolean isPronoun(@NotNull TokenBuffer tokens, int i) {
+        return (tokens.tagClasses(i) & PRONOUN) != 0;
+    }
+    private static boolean isPronoun(@NotNull String tag) {
+        return tag.startsWith("PRP");
     }
     public static boolean isPossessivePronoun(@NotNull CoreLabel label) {
-        return label.tag().equals("PRP$");
+        return (tagClasses(label.tag()) & POSSESSIVE_PRONOUN) != 0;
+    }
+    public static boolean isPossessivePronoun(@NotNull TokenBuffer tokens, int i) {
+        return (tokens.tagClasses(i) & POSSESSIVE_PRONOUN) != 0;
+    }
+    private static boolean isPossessivePronoun(@NotNull String tag) {
+        return tag.equals("PRP$");
     }
     public static boolean isPrepositionOrSubordinatingConjunction(@NotNull CoreLabel label) {
-        return label.tag().startsWith("IN");
+        return (tagClasses(label.tag()) & PREPOSITION) != 0;
+    }
+    public static boolean isPrepositionOrSubordinatingConjunction(@NotNull TokenBuffer tokens, int i) {
+        return (tokens.tagClasses(i) & PREPOSITION) != 0;
+    }
+    private static boolean isPrepositionOrSubordinatingConjunction(@NotNull String tag) {
+        return tag.startsWith("IN");
     }
     public static boolean isDeterminer(@NotNull CoreLabel label) {
-        return label.tag().equals("DT");
+        return (tagClasses(label.tag()) & DETERMINER) != 0;
+    }
+    public static boolean isDeterminer(@NotNull TokenBuffer tokens, int i) {
+        return (tokens.tagClasses(i) & DETERMINER) != 0;
+    }
+    private static boolean isDeterminer(@NotNull String tag) {
+        return tag.equals("DT");
     }
     public static boolean isConjunction(@NotNull CoreLabel label) {
-        return label.tag().equals("CC");
+        return (tagClasses(label.tag()) & CONJUNCTION) != 0;
+    }
+    public static boolean isConjunction(@NotNull TokenBuffer tokens, int i) {
+        return (tokens.tagClasses(i) & CONJUNCTION) != 0;
+    }
+    private static boolean isConjunction(@NotNull String tag) {
+        return tag.equals("CC");
     }
     public static boolean isModalAuxiliary(@NotNull CoreLabel label) {
-        return label.tag().equals("MD");
+        return (tagClasses(label.tag()) & MODAL) != 0;
+    }
+    public static boolean isModalAuxiliary(@NotNull TokenBuffer tokens, int i) {
+        return (tokens.tagClasses(i) & MODAL) != 0;
+    }
+    private static boolean isModalAuxiliary(@NotNull String tag) {
+        return tag.equals("MD");
     }
     public static boolean isTo(@NotNull CoreLabel label) {
-        return label.tag().equals("TO");
+        return (tagClasses(label.tag()) & TO) != 0;
+    }
+    public static boolean isTo(@NotNull TokenBuffer tokens, int i) {
+        return (tokens.tagClasses(i) & TO) != 0;
+    }
+    private static boolean isTo(@NotNull String tag) {
+        return tag.equals("TO");
     }
     public static boolean isPunctuation(@NotNull CoreLabel label) {
-        return label.tag().equals(".");
+        return (tagClasses(label.tag()) & PUNCTUATION) != 0;
+    }
+    public static boolean isPunctuation(@NotNull TokenBuffer tokens, int i) {
+        return (tokens.tagClasses(i) & PUNCTUATION) != 0;
+    }
+    private static boolean isPunctuation(@NotNull String tag) {
+        return tag.equals(".");
     }
     public static boolean isWhPronoun(@NotNull CoreLabel label) {
-        return label.tag().equals("WP") || label.tag().equals("WP$");
+        return (tagClasses(label.tag()) & WH_PRONOUN) != 0;
+    }
+    public static boolean isWhPronoun(@NotNull TokenBuffer tokens, int i) {
+        return (tokens.tagClasses(i) & WH_PRONOUN) != 0;
+    }
+    private static boolean isWhPronoun(@NotNull String tag) {
+        return tag.equals("WP") || tag.equals("WP$");
+    }
+    public static boolean isPossessiveEnding(@NotNull CoreLabel label) {
+        return (tagClasses(label.tag()) & POSSESSIVE_ENDING) != 0;
+    }
+    public static boolean isPossessiveEnding(@NotNull TokenBuffer tokens, int i) {
+        return (tokens.tagClasses(i) & POSSESSIVE_ENDING) != 0;
+    }
+    private static boolean isPossessiveEnding(@NotNull String tag) {
+        return tag.equals("POS");
     }
     public static boolean isModal(@NotNull CoreLabel label) {
-        return label.tag().equals("MD");
+        return (tagClasses(label.tag()) & MODAL) != 0;
+    }
+    public static boolean isModal(@NotNull TokenBuffer tokens, int i) {
+        return (tokens.tagClasses(i) & MODAL) != 0;
     }
 
     public static boolean isNobiliaryParticle(@NotNull CoreLabel label) {
-        final byte[][] particle = {
-                "of".getBytes(),
-                "von".getBytes(),
-                "de".getBytes(),
-                "la".getBytes()
-        };
-
-        if (!isProperNoun(label)) {
-            return false;
-        }
-        return Arrays.stream(particle).anyMatch(p -> Arrays.equals(label.word().toLowerCase().getBytes(), p));
+        return isProperNoun(label) && isNobiliaryParticle(label.word());
+    }
+    public static boolean isNobiliaryParticle(@NotNull TokenBuffer tokens, int i) {
+        return isProperNoun(tokens, i) && isNobiliaryParticle(tokens.word(i));
+    }
+    private static boolean isNobiliaryParticle(@NotNull String word) {
+        return NOBILIARY_PARTICLES.contains(word);
     }
 
     public static boolean isRelationship(@NotNull CoreLabel label) {
-        final byte[][] list = {
-            "friendship".getBytes(),
-            "friend".getBytes(),
-            "partnership".getBytes(),
-            "partner".getBytes(),
-            "connection".getBytes(),
-            "bond".getBytes(),
-            "alliance".getBytes(),
-            "ally".getBytes(),
-            "affiliation".getBytes(),
-            "associate".getBytes(),
-            "association".getBytes(),
-            "collaboration".getBytes(),
-            "collaborator".getBytes(),
-            "union".getBytes(),
-            "interaction".getBytes(),
-            "link".getBytes(),
-            "engagement".getBytes(),
-            "acquaintance".getBytes(),
-            "companionship".getBytes(),
-            "companion".getBytes(),
-            "kinship".getBytes(),
-            "kin".getBytes(),
-            "amity".getBytes(),
-            "commitment".getBytes(),
-            "camaraderie".getBytes(),
-            "colleague".getBytes(),
-            "coalition".getBytes(),
-            "symbiosis".getBytes(),
-            "symbiote".getBytes(),
-            "mentorship".getBytes(),
-            "mentor".getBytes(),
-            "mentee".getBytes(),
-            "team".getBytes(),
-            "teammate".getBytes(),
-            "sibling".getBytes(),
-            "marriage".getBytes(),
-            "spouse".getBytes(),
-            "mate".getBytes(),
-            "peer".getBytes(),
-            "confidant".getBytes(),
-            "confidante".getBytes(),
-            "neighbor".getBytes(),
-            "roommate".getBytes(),
-            "housemate".getBytes(),
-            "classmate".getBytes(),
-            "schoolmate".getBytes(),
-            "playmate".getBytes(),
-            "penpal".getBytes(),
-            "correspondent".getBytes(),
-            "adversary".getBytes(),
-            "rival".getBytes(),
-            "customer".getBytes(),
-            "client".getBytes(),
-            "patron".getBytes(),
-            "benefactor".getBytes(),
-            "recipient".getBytes(),
-            "follower".getBytes(),
-            "subscriber".getBytes(),
-            "supporter".getBytes(),
-            "advocate".getBytes(),
-            "protector".getBytes(),
-            "guardian".getBytes(),
-            "parent".getBytes(),
-            "child".getBytes(),
-            "sibling".getBytes(),
-            "cohort".getBytes(),
-            "partner-in-crime".getBytes(),
-            "soulmate".getBytes(),
-            "confederate".getBytes(),
-            "network".getBytes()
-        };
-
-        return Arrays.stream(list).anyMatch(r -> label.word().equalsIgnoreCase(new String(r)));
+        return isRelationship(label.word());
+    }
+    public static boolean isRelationship(@NotNull TokenBuffer tokens, int i) {
+        return isRelationship(tokens.word(i));
+    }
+    private static boolean isRelationship(@NotNull String word) {
+        return RELATIONSHIPS.contains(word);
     }
 }
@@ -0,0 +1,192 @@
+package org.example.wag;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Enumeration;
+
+// case-insensitive word set, open addressing over the words as given, lookups hash the query in place and never allocate
+public class Lexicon {
+    private String @NotNull [] words; // null marks an empty slot
+    private int mask;
+    private int size = 0;
+    private boolean frozen = false;
+
+    public Lexicon() {
+        this(16);
+    }
+
+    public Lexicon(int expected) {
+        final int capacity = Integer.highestOneBit(Math.max(4, expected * 2) - 1) << 1;
+        this.words = new String[capacity];
+        this.mask = capacity - 1;
+    }
+
+    public static @NotNull Lexicon of(@NotNull String... words) {
+        return of(Arrays.asList(words));
+    }
+
+    public static @NotNull Lexicon of(@NotNull Collection<String> words) {
+        final Lexicon lexicon = new Lexicon(words.size());
+        words.forEach(lexicon::add);
+        return lexicon;
+    }
+
+    // one word per line, blank lines and lines starting with '#' are skipped
+    public static @NotNull Lexicon load(@NotNull Reader reader) throws IOException {
+        final Lexicon lexicon = new Lexicon(256);
+        final BufferedReader lines = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            line = line.strip();
+            if (!line.isEmpty() && line.charAt(0) != '#') {
+                lexicon.add(line);
+            }
+        }
+        return lexicon;
+    }
+
+    public static @NotNull Lexicon load(@NotNull Path path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return load(reader);
+        }
+    }
+
+    // every resource of the class path with that name is merged, so extra entries can ship in their own jar or directory
+    public static @NotNull Lexicon resource(@NotNull String name) throws IOException {
+        final Enumeration<URL> urls = Lexicon.class.getClassLoader().getResources(name);
+        if (!urls.hasMoreElements()) {
+            throw new IOException("Missing lexicon resource: " + name);
+        }
+        final Lexicon lexicon = new Lexicon(256);
+        while (urls.hasMoreElements()) {
+            try (InputStream in = urls.nextElement().openStream()) {
+                lexicon.addAll(load(new InputStreamReader(in, StandardCharsets.UTF_8)));
+            }
+        }
+        return lexicon;
+    }
+
+    // frozen resource lexicon for static initialisers, a missing resource is a packaging error
+    static @NotNull Lexicon bundled(@NotNull String name) {
+        try {
+            return resource(name).freeze();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // no word can be added anymore, the lexicon can then be shared freely between threads
+    public Lexicon freeze() {
+        frozen = true;
+        return this;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    public Lexicon add(@NotNull String word) {
+        if (frozen) {
+            throw new UnsupportedOperationException("Frozen lexicon");
+        }
+        int slot = hash(word) & mask;
+        String current;
+        while ((current = words[slot]) != null) {
+            if (current.equalsIgnoreCase(word)) {
+                return this;
+            }
+            slot = (slot + 1) & mask;
+        }
+        words[slot] = word;
+        if (++size * 2 > words.length) {
+            rehash();
+        }
+        return this;
+    }
+
+    public Lexicon addAll(@NotNull Lexicon other) {
+        for (String word : other.words) {
+            if (word != null) {
+                add(word);
+            }
+        }
+        return this;
+    }
+
+    public boolean contains(@NotNull CharSequence word) {
+        int slot = hash(word) & mask;
+        String current;
+        while ((current = words[slot]) != null) {
+            if (current.length() == word.length() && matches(current, word)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    private static boolean matches(@NotNull String current, @NotNull CharSequence word) {
+        if (word instanceof String string) {
+            return current.equalsIgnoreCase(string);
+        }
+        for (int i = 0; i < current.length(); i++) {
+            if (fold(current.charAt(i)) != fold(word.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void rehash() {
+        final String[] old = words;
+        words = new String[old.length * 2];
+        mask = words.length - 1;
+        for (String word : old) {
+            if (word != null) {
+                int slot = hash(word) & mask;
+                while (words[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                words[slot] = word;
+            }
+        }
+    }
+
+    // folds like String.equalsIgnoreCase so both agree on which words are equal
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static int hash(@NotNull CharSequence word) {
+        int h = 0x811c9dc5;
+        for (int i = 0; i < word.length(); i++) {
+            h ^= fold(word.charAt(i));
+            h *= 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        return "Lexicon{" +
+                "size=" + size +
+                ", frozen=" + frozen +
+                '}';
+    }
+}
@@ -2,6 +2,7 @@ package org.example.wag;
 
 import org.jetbrains.annotations.NotNull;
 
+// subject1 is the relationship of subject2
 public class Relationship {
     private @NotNull Subject subject1;
     private @NotNull Subject subject2;
@@ -13,6 +14,18 @@ public class Relationship {
         this.relationship = relationship;
     }
 
+    public @NotNull Subject getSubject1() {
+        return subject1;
+    }
+
+    public @NotNull Subject getSubject2() {
+        return subject2;
+    }
+
+    public @NotNull String getRelationship() {
+        return relationship;
+    }
+
     @Override
     public String toString() {
         return "Relationship{" +
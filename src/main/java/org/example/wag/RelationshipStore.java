@@ -0,0 +1,206 @@
+package org.example.wag;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+// columnar relationships between subject ordinals of a SubjectIndex, typed by the term id of the relationship lemma,
+// "target is the type of source", e.g. Paul is Marie's friend gives source Marie, type friend, target Paul
+public class RelationshipStore {
+    private final @NotNull TermDictionary terms;
+    private int @NotNull [] sources = new int[16];
+    private int @NotNull [] types = new int[16];
+    private int @NotNull [] targets = new int[16];
+    private int size = 0;
+
+    // per type slot: its rows, then subject -> posting list of rows, once by source and once by target
+    private final @NotNull IntIndex slots = new IntIndex(); // type term id -> slot
+    private int @NotNull [] typeIds = new int[8];
+    private int @NotNull [] @NotNull [] typeRows = new int[8][];
+    private int @NotNull [] typeSizes = new int[8];
+    private @NotNull IntIndex @NotNull [] outgoing = new IntIndex[8];
+    private @NotNull IntIndex @NotNull [] incoming = new IntIndex[8];
+    private int typeCount = 0;
+
+    private int @NotNull [] @NotNull [] lists = new int[16][];
+    private int @NotNull [] sizes = new int[16];
+    private int count = 0;
+
+    public RelationshipStore(@NotNull TermDictionary terms) {
+        this.terms = terms;
+    }
+
+    public int add(int source, @NotNull String type, int target) {
+        return add(source, terms.id(type), target);
+    }
+
+    // row of the relationship, an existing row when it is already known
+    public int add(int source, int type, int target) {
+        if (source < 0 || target < 0) {
+            throw new IllegalArgumentException("Invalid subject: " + (source < 0 ? source : target));
+        }
+        final int slot = slot(type);
+        final int list = outgoing[slot].get(source);
+        if (list != -1) {
+            for (int i = 0; i < sizes[list]; i++) {
+                if (targets[lists[list][i]] == target) {
+                    return lists[list][i];
+                }
+            }
+        }
+        if (size == sources.length) {
+            sources = Arrays.copyOf(sources, size * 2);
+            types = Arrays.copyOf(types, size * 2);
+            targets = Arrays.copyOf(targets, size * 2);
+        }
+        final int row = size++;
+        sources[row] = source;
+        types[row] = type;
+        targets[row] = target;
+        if (typeSizes[slot] == typeRows[slot].length) {
+            typeRows[slot] = Arrays.copyOf(typeRows[slot], typeSizes[slot] * 2);
+        }
+        typeRows[slot][typeSizes[slot]++] = row;
+        append(outgoing[slot], source, row);
+        append(incoming[slot], target, row);
+        return row;
+    }
+
+    private int slot(int type) {
+        int slot = slots.get(type);
+        if (slot == -1) {
+            slot = typeCount++;
+            if (slot == typeIds.length) {
+                typeIds = Arrays.copyOf(typeIds, slot * 2);
+                typeRows = Arrays.copyOf(typeRows, slot * 2);
+                typeSizes = Arrays.copyOf(typeSizes, slot * 2);
+                outgoing = Arrays.copyOf(outgoing, slot * 2);
+                incoming = Arrays.copyOf(incoming, slot * 2);
+            }
+            typeIds[slot] = type;
+            typeRows[slot] = new int[4];
+            typeSizes[slot] = 0;
+            outgoing[slot] = new IntIndex();
+            incoming[slot] = new IntIndex();
+            slots.put(type, slot);
+        }
+        return slot;
+    }
+
+    private void append(@NotNull IntIndex index, int subject, int row) {
+        int list = index.get(subject);
+        if (list == -1) {
+            list = count++;
+            if (list == lists.length) {
+                lists = Arrays.copyOf(lists, list * 2);
+                sizes = Arrays.copyOf(sizes, list * 2);
+            }
+            lists[list] = new int[2];
+            sizes[list] = 0;
+            index.put(subject, list);
+        }
+        if (sizes[list] == lists[list].length) {
+            lists[list] = Arrays.copyOf(lists[list], sizes[list] * 2);
+        }
+        lists[list][sizes[list]++] = row;
+    }
+
+    // targets related to the source by the type, "all mentors of source", in insertion order
+    public int @NotNull [] related(int source, @NotNull String type) {
+        return related(source, terms.find(type));
+    }
+
+    public int @NotNull [] related(int source, int type) {
+        return column(outgoing, source, type, targets);
+    }
+
+    // sources the target is related to by the type, "all subjects target is the mentor of", in insertion order
+    public int @NotNull [] relatedTo(int target, @NotNull String type) {
+        return relatedTo(target, terms.find(type));
+    }
+
+    public int @NotNull [] relatedTo(int target, int type) {
+        return column(incoming, target, type, sources);
+    }
+
+    private int @NotNull [] column(@NotNull IntIndex @NotNull [] index, int subject, int type, int @NotNull [] column) {
+        final int slot = type == -1 ? -1 : slots.get(type);
+        final int list = slot == -1 ? -1 : index[slot].get(subject);
+        if (list == -1) {
+            return new int[0];
+        }
+        final int[] result = new int[sizes[list]];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = column[lists[list][i]];
+        }
+        return result;
+    }
+
+    // rows of every pair related by the type, in insertion order
+    public int @NotNull [] rows(@NotNull String type) {
+        return rows(terms.find(type));
+    }
+
+    public int @NotNull [] rows(int type) {
+        final int slot = type == -1 ? -1 : slots.get(type);
+        if (slot == -1) {
+            return new int[0];
+        }
+        return Arrays.copyOf(typeRows[slot], typeSizes[slot]);
+    }
+
+    public boolean contains(int source, int type, int target) {
+        for (int t : related(source, type)) {
+            if (t == target) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int source(int row) {
+        checkRow(row);
+        return sources[row];
+    }
+
+    public int type(int row) {
+        checkRow(row);
+        return types[row];
+    }
+
+    public int target(int row) {
+        checkRow(row);
+        return targets[row];
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Unknown row: " + row);
+        }
+    }
+
+    // term ids of the relationship types, in order of appearance
+    public int @NotNull [] getTypes() {
+        return Arrays.copyOf(typeIds, typeCount);
+    }
+
+    public @NotNull TermDictionary getTerms() {
+        return terms;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("RelationshipStore{rows=[");
+        for (int row = 0; row < size; row++) {
+            if (row > 0) {
+                sb.append(", ");
+            }
+            sb.append(targets[row]).append(" is ").append(terms.term(types[row])).append(" of ").append(sources[row]);
+        }
+        return sb.append("]}").toString();
+    }
+}
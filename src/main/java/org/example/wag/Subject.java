@@ -2,13 +2,9 @@ package org.example.wag;
 
 import org.jetbrains.annotations.NotNull;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
-import java.util.stream.IntStream;
 
 public class Subject {
 
@@ -26,43 +22,52 @@ public class Subject {
         }
     }
 
+    public static final @NotNull Lexicon MALE_PRONOUNS = Lexicon.bundled("lexicon/male-pronouns.txt");
+    public static final @NotNull Lexicon FEMALE_PRONOUNS = Lexicon.bundled("lexicon/female-pronouns.txt");
+    public static final @NotNull Lexicon NEUTRAL_PRONOUNS = Lexicon.bundled("lexicon/neutral-pronouns.txt");
+
+    private final @NotNull TermDictionary terms;
     private int mainName;
-    private int @NotNull [] hashes;
-    private final @NotNull GraphSpace gspace = new GraphSpace(); // each subject has its own graph space because it is unique, must store kind of vocab in there to keep track of the words to avoid duplicate
+    private int @NotNull [] aliasIds;
+    private final @NotNull SubjectGraph graph; // links of this subject only, the nodes are the shared term ids
     private @NotNull Gender gender = Gender.NEUTRAL;
 
-    public Subject(@NotNull String name) {
-        this.mainName = name.hashCode();
-        this.hashes = new int[0];
-        gspace.emplace(name);
-    }
+    private SubjectIndex index = null;
+    private int ordinal = -1;
 
-    public Subject(@NotNull String name, @NotNull Gender gender) {
-        this.mainName = name.hashCode();
-        this.gender = gender;
-        this.hashes = new int[0];
-        gspace.emplace(name);
+    public Subject(@NotNull TermDictionary terms, @NotNull String name) {
+        this(terms, name, GraphSpace.Mode.OVERWRITE);
     }
 
-    public Subject(@NotNull String name, @NotNull Collection<String> aliases) {
-        final Object @NotNull [] array = aliases.toArray();
+    // the mode decides how repeated links of the subject graph combine, like in the world's GraphSpace
+    public Subject(@NotNull TermDictionary terms, @NotNull String name, @NotNull GraphSpace.Mode mode) {
+        this.terms = terms;
+        this.graph = new SubjectGraph(terms, mode);
+        this.mainName = terms.id(name);
+        this.aliasIds = new int[0];
+        graph.emplace(name);
+    }
 
-        this.mainName = name.hashCode();
-        this.hashes = new int[aliases.size()];
+    public Subject(@NotNull TermDictionary terms, @NotNull String name, @NotNull Gender gender) {
+        this(terms, name);
+        this.gender = gender;
+    }
 
-        IntStream.range(0, aliases.size()).forEach(i -> this.hashes[i] = array[i].hashCode());
-        gspace.emplace(name);
+    public Subject(@NotNull TermDictionary terms, @NotNull String name, @NotNull Collection<String> aliases) {
+        this(terms, name, aliases, GraphSpace.Mode.OVERWRITE);
     }
 
-    public Subject(@NotNull String name, @NotNull Collection<String> aliases, @NotNull Gender gender) {
-        final Object @NotNull [] array = aliases.toArray();
+    public Subject(@NotNull TermDictionary terms, @NotNull String name, @NotNull Collection<String> aliases, @NotNull GraphSpace.Mode mode) {
+        this.terms = terms;
+        this.graph = new SubjectGraph(terms, mode);
+        this.mainName = terms.id(name);
+        this.aliasIds = aliases.stream().mapToInt(terms::id).toArray();
+        graph.emplace(name);
+    }
 
-        this.mainName = name.hashCode();
-        this.hashes = new int[aliases.size()];
+    public Subject(@NotNull TermDictionary terms, @NotNull String name, @NotNull Collection<String> aliases, @NotNull Gender gender) {
+        this(terms, name, aliases);
         this.gender = gender;
-
-        IntStream.range(0, aliases.size()).forEach(i -> this.hashes[i] = array[i].hashCode());
-        gspace.emplace(name);
     }
 
     public @NotNull Gender getGender() {
@@ -76,17 +81,23 @@ public class Subject {
         return mainName;
     }
     public void setName(@NotNull String name) {
-        this.mainName = name.hashCode();
+        this.mainName = terms.id(name);
+        publish(mainName);
     }
     public Subject addAlias(@NotNull String alias) {
-        this.hashes = Arrays.copyOf(hashes, hashes.length + 1);
-        this.hashes[hashes.length - 1] = alias.hashCode();
+        this.aliasIds = Arrays.copyOf(aliasIds, aliasIds.length + 1);
+        this.aliasIds[aliasIds.length - 1] = terms.id(alias);
+        publish(aliasIds[aliasIds.length - 1]);
         return this;
     }
     public Subject addAliases(@NotNull Collection<String> aliases) {
-        this.hashes = Arrays.copyOf(hashes, hashes.length + aliases.size());
-        final Object @NotNull [] array = aliases.toArray();
-        IntStream.range(0, aliases.size()).forEach(i -> this.hashes[i] = array[i].hashCode());
+        final int offset = aliasIds.length;
+        this.aliasIds = Arrays.copyOf(aliasIds, offset + aliases.size());
+        int i = offset;
+        for (String alias : aliases) {
+            aliasIds[i] = terms.id(alias);
+            publish(aliasIds[i++]);
+        }
         return this;
     }
     public Subject addAliases(@NotNull String... aliases) {
@@ -111,15 +122,36 @@ public class Subject {
         hgspace.setLink(mainName, attribute.getName(), 1);*/
         return this;
     }
+    // the name and aliases are published to the index from now on, the current ones right away
+    void attach(@NotNull SubjectIndex index, int ordinal) {
+        this.index = index;
+        this.ordinal = ordinal;
+        publish(mainName);
+        for (int alias : aliasIds) {
+            publish(alias);
+        }
+    }
+    private void publish(int term) {
+        if (index != null) {
+            index.name(term, ordinal);
+        }
+    }
+    // position in the subject index, -1 until registered
+    public int getOrdinal() {
+        return ordinal;
+    }
     public int @NotNull []getAliases() {
-        return hashes;
+        return aliasIds;
     }
-    public @NotNull GraphSpace getGraphSpace() {
-        return gspace;
+    public @NotNull SubjectGraph getGraph() {
+        return graph;
     }
     public boolean match(@NotNull String name) {
-        final int code = name.hashCode();
-        return mainName == code || Arrays.stream(hashes).anyMatch(h -> h == code);
+        final int code = terms.find(name);
+        if (code == -1) {
+            return false;
+        }
+        return mainName == code || Arrays.stream(aliasIds).anyMatch(h -> h == code);
     }
     public boolean matches(@NotNull Collection<String> names) {
         return names.stream().anyMatch(this::match);
@@ -128,15 +160,15 @@ public class Subject {
         return names.stream().filter(this::match).map(s -> s.split(" ").length).max(Integer::compareTo).orElse(0);
     }
     public boolean containsAttribute(@NotNull String attribute) {
-        return gspace.contains(attribute);
+        return graph.contains(attribute);
     }
 
     @Override
     public String toString() {
         return "Subject{" +
                 "name='" + mainName + '\'' +
-                ", aliases=" + Arrays.toString(hashes) +
-                ", gspace=" + gspace +
+                ", aliases=" + Arrays.toString(aliasIds) +
+                ", graph=" + graph +
                 ", gender=" + gender +
                 '}';
     }
@@ -144,60 +176,36 @@ public class Subject {
     public String prettyString(final @NotNull VocabSpace space) {
         return "{\n" +
                 "name: '" + space.getWord(mainName) + "'\n" +
-                "aliases: " + Arrays.toString(Arrays.stream(hashes).mapToObj(space::getWord).toArray()) + '\n' +
+                "aliases: " + Arrays.toString(Arrays.stream(aliasIds).mapToObj(space::getWord).toArray()) + '\n' +
                 gender + '\n' +
                 "gspace: \n" +
-                gspace.prettyString(space) + "\n}";
+                graph.prettyString(space) + "\n}";
     }
 
     public static Gender findGenderFromName(@NotNull String name) {
-        Gender gender = Gender.NEUTRAL;
-
-        try {
-            if (Files.lines(Path.of("male.txt")).anyMatch(l -> l.equalsIgnoreCase(name))) {
-                gender = Gender.MALE;
-            } else if (Files.lines(Path.of("female.txt")).anyMatch(l -> l.equalsIgnoreCase(name))) {
-                gender = Gender.FEMALE;
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        return findGenderFromName(name, GenderLexicon.getDefault());
+    }
 
-        return gender;
+    public static Gender findGenderFromName(@NotNull String name, @NotNull GenderLexicon lexicon) {
+        return lexicon.genderOf(name);
     }
 
     public static Gender findGenderFromPronoun(@NotNull String value) {
-        final byte[][] male = new byte[][] {
-                "he".getBytes(),
-                "him".getBytes(),
-                "his".getBytes(),
-                "himself".getBytes()
-        };
-
-        final byte[][] female = new byte[][] {
-                "she".getBytes(),
-                "her".getBytes(),
-                "hers".getBytes(),
-                "herself".getBytes()
-        };
-
-        final byte[][] neutral = new byte[][] {
-                "it".getBytes(),
-                "its".getBytes(),
-                "itself".getBytes()
-        };
-
-        if (Arrays.stream(male).anyMatch(p -> Arrays.equals(value.toLowerCase().getBytes(), p))) {
+        if (MALE_PRONOUNS.contains(value)) {
             return Gender.MALE;
-        } else if (Arrays.stream(female).anyMatch(p -> Arrays.equals(value.toLowerCase().getBytes(), p))) {
+        } else if (FEMALE_PRONOUNS.contains(value)) {
             return Gender.FEMALE;
-        } else if (Arrays.stream(neutral).anyMatch(p -> Arrays.equals(value.toLowerCase().getBytes(), p))) {
+        } else if (NEUTRAL_PRONOUNS.contains(value)) {
             return Gender.NEUTRAL;
         }
         throw new IllegalArgumentException("Unknown pronoun: " + value);
     }
 
-    public static Subject subject(@NotNull String name) {
-        return new Subject(name, findGenderFromName(name));
+    public static Subject subject(@NotNull TermDictionary terms, @NotNull String name) {
+        return subject(terms, name, GraphSpace.Mode.OVERWRITE);
+    }
+
+    public static Subject subject(@NotNull TermDictionary terms, @NotNull String name, @NotNull GraphSpace.Mode mode) {
+        return new Subject(terms, name, mode).setGender(findGenderFromName(name));
     }
 }
@@ -0,0 +1,232 @@
+package org.example.wag;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// edge overlay of a subject over the shared term ids, only the nodes and links the subject touched are stored
+// each node keeps its neighbours as positions sorted ascending, so a link only touches the lists of its two ends
+public class SubjectGraph {
+    private final @NotNull TermDictionary terms;
+    private final @NotNull GraphSpace.Mode mode;
+
+    private int @NotNull [] nodes = new int[8]; // term ids in insertion order
+    private int @NotNull [] @NotNull [] neighbours = new int[8][];
+    private int @NotNull [] @NotNull [] positives = new int[8][];
+    private int @NotNull [] @NotNull [] negatives = new int[8][];
+    private int @NotNull [] degrees = new int[8];
+    private int size = 0;
+    private final @NotNull IntIndex positions = new IntIndex(8); // term id -> position in nodes
+    private int entries = 0;
+
+    private SubjectIndex index = null;
+    private int ordinal = -1;
+
+    public SubjectGraph(@NotNull TermDictionary terms) {
+        this(terms, GraphSpace.Mode.OVERWRITE);
+    }
+
+    public SubjectGraph(@NotNull TermDictionary terms, @NotNull GraphSpace.Mode mode) {
+        this.terms = terms;
+        this.mode = mode;
+    }
+
+    // linked nodes are published to the index from now on, the ones already linked are published right away
+    void attach(@NotNull SubjectIndex index, int ordinal) {
+        this.index = index;
+        this.ordinal = ordinal;
+        for (int i = 0; i < size; i++) {
+            if (degrees[i] > 0) {
+                index.link(nodes[i], ordinal);
+            }
+        }
+    }
+
+    public SubjectGraph emplace(@NotNull String word) {
+        emplaceFromId(terms.id(word));
+        return this;
+    }
+
+    private int emplaceFromId(int id) {
+        final int position = positions.get(id);
+        if (position != -1) {
+            return position;
+        }
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            neighbours = Arrays.copyOf(neighbours, size * 2);
+            positives = Arrays.copyOf(positives, size * 2);
+            negatives = Arrays.copyOf(negatives, size * 2);
+            degrees = Arrays.copyOf(degrees, size * 2);
+        }
+        nodes[size] = id;
+        neighbours[size] = new int[0];
+        positives[size] = new int[0];
+        negatives[size] = new int[0];
+        degrees[size] = 0;
+        positions.put(id, size);
+        return size++;
+    }
+
+    public boolean contains(@NotNull String word) {
+        final int id = terms.find(word);
+        return id != -1 && positions.containsKey(id);
+    }
+
+    private int position(@NotNull String word) {
+        final int id = terms.find(word);
+        final int position = id == -1 ? -1 : positions.get(id);
+        if (position == -1) {
+            throw new IllegalArgumentException("Unknown node: " + word);
+        }
+        return position;
+    }
+
+    public void setLink(@NotNull String word1, @NotNull String word2, int weight) {
+        final int a = position(word1);
+        final int b = position(word2);
+        put(a, b, weight);
+        if (a != b) {
+            put(b, a, weight);
+        }
+    }
+
+    private void put(int position, int neighbour, int weight) {
+        final int degree = degrees[position];
+        int at = Arrays.binarySearch(neighbours[position], 0, degree, neighbour);
+        if (at < 0) {
+            at = -at - 1;
+            if (degree == neighbours[position].length) {
+                final int capacity = Math.max(4, degree * 2);
+                neighbours[position] = Arrays.copyOf(neighbours[position], capacity);
+                positives[position] = Arrays.copyOf(positives[position], capacity);
+                negatives[position] = Arrays.copyOf(negatives[position], capacity);
+            }
+            System.arraycopy(neighbours[position], at, neighbours[position], at + 1, degree - at);
+            System.arraycopy(positives[position], at, positives[position], at + 1, degree - at);
+            System.arraycopy(negatives[position], at, negatives[position], at + 1, degree - at);
+            neighbours[position][at] = neighbour;
+            positives[position][at] = 0;
+            negatives[position][at] = 0;
+            degrees[position]++;
+            entries++;
+            if (degree == 0 && index != null) {
+                index.link(nodes[position], ordinal);
+            }
+        }
+        if (mode == GraphSpace.Mode.OVERWRITE) {
+            positives[position][at] = Math.max(weight, 0);
+            negatives[position][at] = Math.max(-weight, 0);
+        } else {
+            positives[position][at] += Math.max(weight, 0);
+            negatives[position][at] += Math.max(-weight, 0);
+        }
+    }
+
+    // entry of the neighbour in the links of the node, negative when not linked
+    private int entry(int position, int neighbour) {
+        return Arrays.binarySearch(neighbours[position], 0, degrees[position], neighbour);
+    }
+
+    // signed score of the link, 0 when the words are not linked
+    public int getLink(@NotNull String word1, @NotNull String word2) {
+        final int a = terms.find(word1);
+        final int b = terms.find(word2);
+        final int pa = a == -1 ? -1 : positions.get(a);
+        final int pb = b == -1 ? -1 : positions.get(b);
+        if (pa == -1 || pb == -1) {
+            return 0;
+        }
+        final int at = entry(pa, pb);
+        return at >= 0 ? positives[pa][at] - negatives[pa][at] : 0;
+    }
+
+    // term ids linked to the word, ascending
+    public int @NotNull [] getNeighbours(@NotNull String word) {
+        final int id = terms.find(word);
+        final int position = id == -1 ? -1 : positions.get(id);
+        if (position == -1) {
+            return new int[0];
+        }
+        final int[] ids = new int[degrees[position]];
+        for (int e = 0; e < ids.length; e++) {
+            ids[e] = nodes[neighbours[position][e]];
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    // links of the node at the position, the neighbours are given as positions in insertion order
+    public void forEachLink(int position, @NotNull GraphSpace.LinkVisitor visitor) throws IOException {
+        for (int e = 0; e < degrees[position]; e++) {
+            visitor.visit(neighbours[position][e], positives[position][e], negatives[position][e]);
+        }
+    }
+
+    // CSR view for GraphQuery and GraphCentrality, node i of the snapshot is the node at position i
+    public @NotNull GraphSnapshot snapshot() {
+        final int[] ids = Arrays.copyOf(nodes, size);
+        final int[] offsets = new int[size + 1];
+        final int[] targets = new int[entries];
+        final int[] positive = new int[entries];
+        final int[] negative = new int[entries];
+        for (int position = 0; position < size; position++) {
+            final int at = offsets[position];
+            final int degree = degrees[position];
+            System.arraycopy(neighbours[position], 0, targets, at, degree);
+            System.arraycopy(positives[position], 0, positive, at, degree);
+            System.arraycopy(negatives[position], 0, negative, at, degree);
+            offsets[position + 1] = at + degree;
+        }
+        return new GraphSnapshot(terms, ids, offsets, targets, positive, negative);
+    }
+
+    public @NotNull GraphSpace.Mode getMode() {
+        return mode;
+    }
+
+    public @NotNull TermDictionary getTerms() {
+        return terms;
+    }
+
+    public int idAt(int position) {
+        return nodes[position];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // directed entries, every link appears once per end
+    public int entries() {
+        return entries;
+    }
+
+    @Override
+    public String toString() {
+        return "SubjectGraph{" +
+                "mode=" + mode +
+                ", nodes=" + Arrays.toString(Arrays.copyOf(nodes, size)) +
+                ", links=" + IntStream.range(0, size).mapToObj(i -> IntStream.range(0, degrees[i]).mapToObj(e -> nodes[neighbours[i][e]] + "=+" + positives[i][e] + "/-" + negatives[i][e]).collect(Collectors.joining(", ", "{", "}"))).collect(Collectors.joining(", ", "[", "]")) +
+                '}';
+    }
+
+    // the nodes and their links are listed in insertion order
+    public String prettyString(@NotNull VocabSpace space) {
+        return IntStream.range(0, size).mapToObj(position -> {
+            final StringBuilder sb = new StringBuilder();
+            sb.append(space.getWord(nodes[position])).append(": ");
+            sb.append(IntStream.range(0, degrees[position])
+                    .filter(e -> positives[position][e] != negatives[position][e])
+                    .mapToObj(e -> {
+                        final String word = space.getWord(nodes[neighbours[position][e]]);
+                        return positives[position][e] < negatives[position][e] ? "not " + word : word;
+                    })
+                    .collect(Collectors.joining(", ", "[", "]")));
+            return sb.toString();
+        }).collect(Collectors.joining("\n"));
+    }
+}
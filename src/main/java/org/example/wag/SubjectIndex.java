@@ -0,0 +1,129 @@
+package org.example.wag;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+// postings from term ids to the subjects whose graph links them, fed by the subject graphs as links are added,
+// and from name and alias term ids to the subjects they designate, fed by the subjects as aliases are added
+public class SubjectIndex {
+    private final @NotNull TermDictionary terms;
+    private final @NotNull List<Subject> subjects = new ArrayList<>();
+    private final @NotNull IntIndex postings = new IntIndex(); // term id -> posting list
+    private final @NotNull IntIndex names = new IntIndex(); // name or alias term id -> posting list
+    private int @NotNull [] @NotNull [] lists = new int[16][];
+    private int @NotNull [] sizes = new int[16];
+    private int count = 0;
+
+    public SubjectIndex(@NotNull TermDictionary terms) {
+        this.terms = terms;
+    }
+
+    // the subject reports its names and the subject graph its linked terms from now on
+    public int register(@NotNull Subject subject) {
+        final int ordinal = subjects.size();
+        subjects.add(subject);
+        subject.attach(this, ordinal);
+        subject.getGraph().attach(this, ordinal);
+        return ordinal;
+    }
+
+    // a subject graph reports a term once, when it gets its first link
+    void link(int term, int ordinal) {
+        append(postings, term, ordinal);
+    }
+
+    // a subject reports its main name and every alias it gets, a renamed subject keeps its old name posted
+    void name(int term, int ordinal) {
+        final int list = names.get(term);
+        if (list != -1 && sizes[list] > 0 && lists[list][sizes[list] - 1] == ordinal) {
+            return;
+        }
+        append(names, term, ordinal);
+    }
+
+    private void append(@NotNull IntIndex index, int term, int ordinal) {
+        int list = index.get(term);
+        if (list == -1) {
+            list = count++;
+            if (list == lists.length) {
+                lists = Arrays.copyOf(lists, list * 2);
+                sizes = Arrays.copyOf(sizes, list * 2);
+            }
+            lists[list] = new int[2];
+            sizes[list] = 0;
+            index.put(term, list);
+        }
+        if (sizes[list] == lists[list].length) {
+            lists[list] = Arrays.copyOf(lists[list], sizes[list] * 2);
+        }
+        lists[list][sizes[list]++] = ordinal;
+    }
+
+    // subjects matching any of the names, in registration order, only the postings of the names are visited
+    public @NotNull List<Subject> named(@NotNull Collection<String> words) {
+        int[] candidates = new int[8];
+        int found = 0;
+        for (String word : words) {
+            final int id = terms.find(word);
+            final int list = id == -1 ? -1 : names.get(id);
+            if (list == -1) {
+                continue;
+            }
+            if (found + sizes[list] > candidates.length) {
+                candidates = Arrays.copyOf(candidates, Math.max(candidates.length * 2, found + sizes[list]));
+            }
+            System.arraycopy(lists[list], 0, candidates, found, sizes[list]);
+            found += sizes[list];
+        }
+        if (found == 0) {
+            return List.of();
+        }
+        Arrays.sort(candidates, 0, found);
+        final List<Subject> named = new ArrayList<>();
+        for (int i = 0; i < found; i++) {
+            if (i > 0 && candidates[i] == candidates[i - 1]) {
+                continue;
+            }
+            final Subject subject = subjects.get(candidates[i]);
+            // stale postings of renamed subjects are dropped here
+            if (subject.matches(words)) {
+                named.add(subject);
+            }
+        }
+        return named;
+    }
+
+    // subjects whose graph links the word, in registration order
+    public @NotNull List<Subject> linkedTo(@NotNull String word) {
+        final int id = terms.find(word);
+        final int list = id == -1 ? -1 : postings.get(id);
+        if (list == -1) {
+            return List.of();
+        }
+        final List<Subject> linked = new ArrayList<>(sizes[list]);
+        for (int i = 0; i < sizes[list]; i++) {
+            linked.add(subjects.get(lists[list][i]));
+        }
+        return linked;
+    }
+
+    public @NotNull Subject get(int ordinal) {
+        return subjects.get(ordinal);
+    }
+
+    public int size() {
+        return subjects.size();
+    }
+
+    @Override
+    public String toString() {
+        return "SubjectIndex{" +
+                "subjects=" + subjects.size() +
+                ", terms=" + count +
+                '}';
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.wag;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+// central term dictionary, hands out dense ids shared by every space of a world
+// terms are hashed on 64 bits and compared on equality, two terms never share an id even when their hashes collide
+public class TermDictionary {
+    private static final int EMPTY = -1;
+
+    private @NotNull String @NotNull [] terms = new String[16];
+    private long @NotNull [] hashes = new long[16];
+    private int size = 0;
+
+    private int @NotNull [] slots = new int[32];
+    private int mask = 31;
+    private long collisions = 0;
+
+    public TermDictionary() {
+        Arrays.fill(slots, EMPTY);
+    }
+
+    // id of the term, registered when absent
+    public int id(@NotNull String term) {
+        final long hash = hash64(term);
+        int slot = (int) hash & mask;
+        int id;
+        while ((id = slots[slot]) != EMPTY) {
+            if (hashes[id] == hash) {
+                if (terms[id].equals(term)) {
+                    return id;
+                }
+                collisions++;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        id = size++;
+        if (id == terms.length) {
+            terms = Arrays.copyOf(terms, id * 2);
+            hashes = Arrays.copyOf(hashes, id * 2);
+        }
+        terms[id] = term;
+        hashes[id] = hash;
+        slots[slot] = id;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    // id of the term, or -1 when it was never registered
+    public int find(@NotNull String term) {
+        final long hash = hash64(term);
+        int slot = (int) hash & mask;
+        int id;
+        while ((id = slots[slot]) != EMPTY) {
+            if (hashes[id] == hash && terms[id].equals(term)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    public boolean contains(@NotNull String term) {
+        return find(term) != EMPTY;
+    }
+
+    public @NotNull String term(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("Unknown term id: " + id);
+        }
+        return terms[id];
+    }
+
+    public long hash(int id) {
+        return hashes[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // distinct terms met with an already registered 64-bit hash
+    public long collisions() {
+        return collisions;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        mask = slots.length - 1;
+        Arrays.fill(slots, EMPTY);
+        for (int id = 0; id < size; id++) {
+            int slot = (int) hashes[id] & mask;
+            while (slots[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id;
+        }
+    }
+
+    // FNV-1a over the UTF-16 code units, finalised with the murmur3 mixer so the low bits are usable as a slot
+    public static long hash64(@NotNull CharSequence term) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < term.length(); i++) {
+            h ^= term.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return "TermDictionary{" +
+                "size=" + size +
+                ", collisions=" + collisions +
+                '}';
+    }
+}
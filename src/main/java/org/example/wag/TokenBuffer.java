@@ -0,0 +1,136 @@
+package org.example.wag;
+
+import edu.stanford.nlp.ling.CoreLabel;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+// annotated sentence stored as parallel primitive arrays, strings are interned once in the term dictionary
+public class TokenBuffer {
+    private final @NotNull TermDictionary terms;
+    private int @NotNull [] words;
+    private int @NotNull [] lemmas;
+    private short @NotNull [] tags;
+    private int @NotNull [] classes; // Label word class bits of the tag, decoded when the token is added
+    private int @NotNull [] indices;
+    private int size = 0;
+
+    public TokenBuffer(@NotNull TermDictionary terms) {
+        this(terms, 16);
+    }
+
+    public TokenBuffer(@NotNull TermDictionary terms, int capacity) {
+        this.terms = terms;
+        this.words = new int[capacity];
+        this.lemmas = new int[capacity];
+        this.tags = new short[capacity];
+        this.classes = new int[capacity];
+        this.indices = new int[capacity];
+    }
+
+    public static @NotNull TokenBuffer of(@NotNull List<CoreLabel> labels, @NotNull TermDictionary terms) {
+        final TokenBuffer buffer = new TokenBuffer(terms, labels.size());
+        for (CoreLabel label : labels) {
+            buffer.add(label.word(), label.tag(), label.lemma(), label.index());
+        }
+        return buffer;
+    }
+
+    public TokenBuffer add(@NotNull String word, @NotNull String tag, @NotNull String lemma, int index) {
+        if (size == words.length) {
+            final int capacity = Math.max(16, size * 2);
+            words = Arrays.copyOf(words, capacity);
+            lemmas = Arrays.copyOf(lemmas, capacity);
+            tags = Arrays.copyOf(tags, capacity);
+            classes = Arrays.copyOf(classes, capacity);
+            indices = Arrays.copyOf(indices, capacity);
+        }
+        words[size] = terms.id(word);
+        lemmas[size] = terms.id(lemma);
+        tags[size] = (short) Label.tagCode(tag);
+        classes[size] = Label.tagClasses(tags[size]);
+        indices[size] = index;
+        size++;
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public @NotNull TermDictionary terms() {
+        return terms;
+    }
+
+    public int wordId(int i) {
+        return words[i];
+    }
+
+    public int lemmaId(int i) {
+        return lemmas[i];
+    }
+
+    public int tagCode(int i) {
+        return tags[i];
+    }
+
+    public int tagClasses(int i) {
+        return classes[i];
+    }
+
+    // position of the token inside its sentence, starting at 1
+    public int index(int i) {
+        return indices[i];
+    }
+
+    public @NotNull String word(int i) {
+        return terms.term(words[i]);
+    }
+
+    public @NotNull String lemma(int i) {
+        return terms.term(lemmas[i]);
+    }
+
+    public @NotNull String tag(int i) {
+        return Label.tagName(tags[i]);
+    }
+
+    public @NotNull String words(int from, int to) {
+        return join(words, from, to);
+    }
+
+    public @NotNull String lemmas(int from, int to) {
+        return join(lemmas, from, to);
+    }
+
+    private @NotNull String join(int @NotNull [] ids, int from, int to) {
+        if (to - from == 1) {
+            return terms.term(ids[from]);
+        }
+        final StringBuilder sb = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            if (i != from) {
+                sb.append(' ');
+            }
+            sb.append(terms.term(ids[i]));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("TokenBuffer{");
+        for (int i = 0; i < size; i++) {
+            if (i != 0) {
+                sb.append(", ");
+            }
+            sb.append(word(i)).append('/').append(tag(i)).append('-').append(indices[i]);
+        }
+        return sb.append('}').toString();
+    }
+}
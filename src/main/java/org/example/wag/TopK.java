@@ -0,0 +1,111 @@
+package org.example.wag;
+
+import org.jetbrains.annotations.NotNull;
+
+// bounded min-heap keeping the k best (item, score) pairs, ties go to the smaller item
+public class TopK {
+    private final int k;
+    private final int @NotNull [] items;
+    private final double @NotNull [] scores;
+    private int size = 0;
+
+    public TopK(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Invalid k: " + k);
+        }
+        this.k = k;
+        this.items = new int[k];
+        this.scores = new double[k];
+    }
+
+    public void offer(int item, double score) {
+        if (size < k) {
+            items[size] = item;
+            scores[size] = score;
+            up(size++);
+        } else if (k > 0 && worse(items[0], scores[0], item, score)) {
+            items[0] = item;
+            scores[0] = score;
+            down(0);
+        }
+    }
+
+    // lowest kept score, negative infinity until the heap is full
+    public double threshold() {
+        return size < k ? Double.NEGATIVE_INFINITY : scores[0];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    // empties the heap, best pair first
+    public int drain(int @NotNull [] itemsOut, double @NotNull [] scoresOut) {
+        final int count = size;
+        for (int i = count - 1; i >= 0; i--) {
+            itemsOut[i] = items[0];
+            scoresOut[i] = scores[0];
+            size--;
+            if (size > 0) {
+                items[0] = items[size];
+                scores[0] = scores[size];
+                down(0);
+            }
+        }
+        return count;
+    }
+
+    private static boolean worse(int a, double as, int b, double bs) {
+        return as < bs || (as == bs && a > b);
+    }
+
+    private void up(int i) {
+        while (i > 0) {
+            final int parent = (i - 1) >>> 1;
+            if (!worse(items[i], scores[i], items[parent], scores[parent])) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void down(int i) {
+        while (true) {
+            final int left = 2 * i + 1;
+            if (left >= size) {
+                break;
+            }
+            int child = left;
+            if (left + 1 < size && worse(items[left + 1], scores[left + 1], items[left], scores[left])) {
+                child = left + 1;
+            }
+            if (!worse(items[child], scores[child], items[i], scores[i])) {
+                break;
+            }
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    private void swap(int a, int b) {
+        final int item = items[a];
+        items[a] = items[b];
+        items[b] = item;
+        final double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+
+    @Override
+    public String toString() {
+        return "TopK{" +
+                "k=" + k +
+                ", size=" + size +
+                '}';
+    }
+}
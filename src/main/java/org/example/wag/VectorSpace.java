@@ -1,92 +1,300 @@
 package org.example.wag;
 
+import org.example.wag.kernel.DotKernel;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+// rows start sparse (sorted column/value pairs) and are promoted to a dense slot once their fill ratio reaches PROMOTE_RATIO
+// dense slots are stored contiguously in a single row-major buffer, both the slot count and the stride grow by doubling
 public class VectorSpace {
-    private int dimensions = 0;
-    private double @NotNull [] @NotNull [] data = new double[0][];
-    private int @NotNull [] hashes = new int[0];
+    public static final double PROMOTE_RATIO = 0.5;
+
+    @FunctionalInterface
+    public interface EntryVisitor {
+        void visit(int column, double value) throws IOException;
+    }
 
-    public VectorSpace(int dimensions) {
+    private static final int @NotNull [] NO_COLUMNS = new int[0];
+    private static final double @NotNull [] NO_VALUES = new double[0];
+
+    private final @NotNull TermDictionary terms;
+    private int dimensions = 0;
+    private int width = 0; // highest column written + 1, may exceed the dimensions until the next equalize
+    private int size = 0;
+    private int @NotNull [] ids = new int[16];
+    private int @NotNull [] rows = new int[0]; // term id -> row, -1 when absent
+
+    // sparse rows
+    private int @NotNull [] @NotNull [] columns = new int[16][];
+    private double @NotNull [] @NotNull [] values = new double[16][];
+    private int @NotNull [] nnz = new int[16];
+
+    // dense rows
+    private int @NotNull [] slots = new int[16]; // row -> dense slot, -1 while the row is sparse
+    private double @NotNull [] buffer = new double[0];
+    private int stride = 0; // allocated columns per slot
+    private int denseSize = 0;
+    private int denseCapacity = 0;
+
+    public VectorSpace(@NotNull TermDictionary terms, int dimensions) {
+        this.terms = terms;
         this.dimensions = dimensions;
     }
 
     public VectorSpace emplace(@NotNull String word) {
-        hashes = Arrays.copyOf(hashes, hashes.length + 1);
-        hashes[data.length] = word.hashCode();
-        data = Arrays.copyOf(data, data.length + 1);
-        data[data.length - 1] = Vector.zeros(dimensions).apply();
-        return this;
+        return emplaceFromId(terms.id(word));
     }
 
-    public VectorSpace emplaceFromCode(int code) {
-        hashes = Arrays.copyOf(hashes, hashes.length + 1);
-        hashes[data.length] = code;
-        data = Arrays.copyOf(data, data.length + 1);
-        data[data.length - 1] = Vector.zeros(dimensions).apply();
+    public VectorSpace emplaceFromId(int id) {
+        append(id);
         return this;
     }
 
     public VectorSpace set(@NotNull String word, double @NotNull [] vector) {
-        int index = IntStream.range(0, hashes.length).filter(i -> hashes[i] == word.hashCode()).findFirst().orElse(-1);
-        if (index == -1) {
-            index = data.length;
-            hashes = Arrays.copyOf(hashes, hashes.length + 1);
-            hashes[data.length] = word.hashCode();
-            data = Arrays.copyOf(data, data.length + 1);
-        }
-        data[index] = vector;
+        return setFromId(terms.id(word), vector);
+    }
+
+    public VectorSpace set(@NotNull String word, @NotNull Vector vector) {
+        return setFromId(terms.id(word), vector);
+    }
+
+    public VectorSpace setFromId(int id, double @NotNull [] vector) {
+        set(rowOrAppend(id), vector);
         return this;
     }
 
-    public VectorSpace setFromCode(int code, double @NotNull [] vector) {
-        int index = IntStream.range(0, hashes.length).filter(i -> hashes[i] == code).findFirst().orElse(-1);
-        if (index == -1) {
-            index = data.length;
-            hashes = Arrays.copyOf(hashes, hashes.length + 1);
-            hashes[data.length] = code;
-            data = Arrays.copyOf(data, data.length + 1);
-        }
-        data[index] = vector;
+    public VectorSpace setFromId(int id, @NotNull Vector vector) {
+        set(rowOrAppend(id), vector);
         return this;
     }
 
+    private int rowOrAppend(int id) {
+        final int index = rowOf(id);
+        return index == -1 ? append(id) : index;
+    }
+
+    private int append(int id) {
+        final int index = size;
+        if (index == ids.length) {
+            final int capacity = index * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            columns = Arrays.copyOf(columns, capacity);
+            values = Arrays.copyOf(values, capacity);
+            nnz = Arrays.copyOf(nnz, capacity);
+            slots = Arrays.copyOf(slots, capacity);
+        }
+        ids[index] = id;
+        columns[index] = NO_COLUMNS;
+        values[index] = NO_VALUES;
+        nnz[index] = 0;
+        slots[index] = -1;
+        if (id >= rows.length) {
+            final int length = rows.length;
+            rows = Arrays.copyOf(rows, Math.max(id + 1, Math.max(terms.size(), length * 2)));
+            Arrays.fill(rows, length, rows.length, -1);
+        }
+        rows[id] = index;
+        size++;
+        return index;
+    }
+
+    public int rowOf(int id) {
+        if (id < 0 || id >= rows.length) {
+            return -1;
+        }
+        return rows[id];
+    }
+
+    private void checkRow(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Unknown row: " + index);
+        }
+    }
+
+    private boolean worthDense(int nonZeros, int length) {
+        return nonZeros > 0 && nonZeros >= Math.max(dimensions, length) * PROMOTE_RATIO;
+    }
+
+    // copy the vector into the row, the rest of the row is cleared
     public void set(int index, double @NotNull [] vector) {
-        if (index >= data.length) {
-            data = Arrays.copyOf(data, index + 1);
+        checkRow(index);
+        int count = 0;
+        for (double value : vector) {
+            if (value != 0) {
+                count++;
+            }
         }
-        data[index] = vector;
+        if (slots[index] == -1 && worthDense(count, vector.length)) {
+            allocateSlot(index);
+        }
+        if (slots[index] != -1) {
+            reserveColumns(vector.length);
+            final int offset = slots[index] * stride;
+            System.arraycopy(vector, 0, buffer, offset, vector.length);
+            Arrays.fill(buffer, offset + vector.length, offset + stride, 0);
+        } else {
+            final int[] cs = new int[count];
+            final double[] vs = new double[count];
+            for (int i = 0, k = 0; i < vector.length; i++) {
+                if (vector[i] != 0) {
+                    cs[k] = i;
+                    vs[k++] = vector[i];
+                }
+            }
+            columns[index] = cs;
+            values[index] = vs;
+            nnz[index] = count;
+        }
+        width = Math.max(width, vector.length);
     }
 
-    public double[] get(@NotNull String word) {
-        int index = IntStream.range(0, hashes.length).filter(i -> hashes[i] == word.hashCode()).findFirst().orElse(-1);
-        if (index == -1) {
-            return null;
+    public void set(int index, @NotNull Vector vector) {
+        if (!vector.isSparse()) {
+            set(index, vector.data);
+            return;
         }
-        return data[index];
+        checkRow(index);
+        if (slots[index] == -1 && worthDense(vector.nnz, vector.length)) {
+            allocateSlot(index);
+        }
+        if (slots[index] != -1) {
+            reserveColumns(vector.length);
+            final int offset = slots[index] * stride;
+            Arrays.fill(buffer, offset, offset + stride, 0);
+            for (int k = 0; k < vector.nnz; k++) {
+                buffer[offset + vector.columns[k]] = vector.values[k];
+            }
+        } else {
+            columns[index] = Arrays.copyOf(vector.columns, vector.nnz);
+            values[index] = Arrays.copyOf(vector.values, vector.nnz);
+            nnz[index] = vector.nnz;
+        }
+        width = Math.max(width, vector.length);
     }
 
-    public double[] getFromCode(int code) {
-        int index = IntStream.range(0, hashes.length).filter(i -> hashes[i] == code).findFirst().orElse(-1);
+    // move a sparse row into a fresh dense slot, promotion is one way
+    private void allocateSlot(int index) {
+        if (denseSize == denseCapacity) {
+            reserve(Math.max(16, denseCapacity * 2), stride);
+        }
+        // dense rows are always read over `dimensions` columns, the stride must cover them
+        reserveColumns(Math.max(dimensions, nnz[index] > 0 ? columns[index][nnz[index] - 1] + 1 : 0));
+        final int slot = denseSize++;
+        final int offset = slot * stride;
+        for (int k = 0; k < nnz[index]; k++) {
+            buffer[offset + columns[index][k]] = values[index][k];
+        }
+        slots[index] = slot;
+        columns[index] = NO_COLUMNS;
+        values[index] = NO_VALUES;
+        nnz[index] = 0;
+    }
+
+    private void reserve(int slotCapacity, int columnCapacity) {
+        final long length = (long) slotCapacity * columnCapacity;
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Vector space too large: " + slotCapacity + "x" + columnCapacity);
+        }
+        if (columnCapacity == stride) {
+            buffer = Arrays.copyOf(buffer, (int) length);
+        } else {
+            final double[] grown = new double[(int) length];
+            final int kept = Math.min(stride, columnCapacity);
+            for (int i = 0; i < denseSize; i++) {
+                System.arraycopy(buffer, i * stride, grown, i * columnCapacity, kept);
+            }
+            buffer = grown;
+            stride = columnCapacity;
+        }
+        denseCapacity = slotCapacity;
+    }
+
+    private void reserveColumns(int count) {
+        if (count > stride) {
+            reserve(denseCapacity, Math.max(count, Math.max(16, stride * 2)));
+        }
+    }
+
+    public double[] get(@NotNull String word) {
+        return getFromId(terms.find(word));
+    }
+
+    public double[] getFromId(int id) {
+        int index = rowOf(id);
         if (index == -1) {
             return null;
         }
-        return data[index];
+        return get(index);
     }
 
+    // dense copy of the row, use vector() to keep the sparse form or row() to work in place
     public double[] get(int index) {
-        if (index >= data.length) {
+        if (index >= size) {
             return null;
         }
-        return data[index];
+        final double[] vector = new double[dimensions];
+        if (slots[index] != -1) {
+            System.arraycopy(buffer, slots[index] * stride, vector, 0, dimensions);
+        } else {
+            for (int k = 0; k < nnz[index] && columns[index][k] < dimensions; k++) {
+                vector[columns[index][k]] = values[index][k];
+            }
+        }
+        return vector;
+    }
+
+    public Vector vector(@NotNull String word) {
+        final int index = rowOf(terms.find(word));
+        return index == -1 ? null : vector(index);
+    }
+
+    // copy of the row keeping its representation
+    public @NotNull Vector vector(int index) {
+        checkRow(index);
+        if (slots[index] != -1) {
+            return Vector.vector(get(index));
+        }
+        int count = 0;
+        while (count < nnz[index] && columns[index][count] < dimensions) {
+            count++;
+        }
+        return Vector.sparse(dimensions, Arrays.copyOf(columns[index], count), Arrays.copyOf(values[index], count), count);
+    }
+
+    public @NotNull Row row(int index) {
+        checkRow(index);
+        return new Row(index);
+    }
+
+    public Row row(@NotNull String word) {
+        final int index = rowOf(terms.find(word));
+        return index == -1 ? null : new Row(index);
     }
 
     public boolean contains(@NotNull String word) {
-        return Arrays.stream(hashes).anyMatch(h -> h == word.hashCode());
+        return rowOf(terms.find(word)) != -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int denseRows() {
+        return denseSize;
+    }
+
+    public int idAt(int index) {
+        return ids[index];
+    }
+
+    public @NotNull TermDictionary getTerms() {
+        return terms;
     }
 
     public int dimensions() {
@@ -94,47 +302,335 @@ public class VectorSpace {
     }
 
     public VectorSpace resize(int dimensions) {
+        reserveColumns(dimensions);
         this.dimensions = dimensions;
         return this;
     }
 
+    // drop what was written past the dimensions so every row reads as exactly `dimensions` long
     public void equalize() {
-        for (int i = 0; i < data.length; i++) {
-            data[i] = Arrays.copyOf(data[i], dimensions);
+        if (width > dimensions) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] != -1) {
+                    Arrays.fill(buffer, slots[i] * stride + dimensions, slots[i] * stride + Math.min(width, stride), 0);
+                } else {
+                    final int cut = Arrays.binarySearch(columns[i], 0, nnz[i], dimensions);
+                    nnz[i] = cut >= 0 ? cut : -cut - 1;
+                }
+            }
         }
+        width = dimensions;
+    }
+
+    // rows closest to the word by cosine similarity, best first, the word itself is left out
+    public @NotNull List<Neighbour> nearest(@NotNull String word, int k) {
+        final int index = rowOf(terms.find(word));
+        if (index == -1) {
+            return List.of();
+        }
+        return nearest(get(index), k, index);
+    }
+
+    public @NotNull List<Neighbour> nearest(@NotNull Vector query, int k) {
+        return nearest(query.apply(), k);
+    }
+
+    public @NotNull List<Neighbour> nearest(double @NotNull [] query, int k) {
+        return nearest(Arrays.copyOf(query, dimensions), k, -1);
+    }
+
+    // one query per word, spread over the common pool, the space must not be written meanwhile
+    public @NotNull List<List<Neighbour>> nearest(@NotNull List<String> words, int k) {
+        return IntStream.range(0, words.size()).parallel().mapToObj(i -> nearest(words.get(i), k)).toList();
+    }
+
+    private @NotNull List<Neighbour> nearest(double @NotNull [] query, int k, int exclude) {
+        final DotKernel kernel = DotKernel.get();
+        final double norm = Math.sqrt(kernel.dot(query, query));
+        if (norm == 0 || k <= 0) {
+            return List.of();
+        }
+        final TopK top = new TopK(k);
+        for (int i = 0; i < size; i++) {
+            if (i == exclude) {
+                continue;
+            }
+            double dot = 0;
+            double squared = 0;
+            if (slots[i] != -1) {
+                final int offset = slots[i] * stride;
+                dot = kernel.dot(query, 0, buffer, offset, dimensions);
+                squared = kernel.dot(buffer, offset, buffer, offset, dimensions);
+            } else {
+                for (int c = 0; c < nnz[i] && columns[i][c] < dimensions; c++) {
+                    dot += values[i][c] * query[columns[i][c]];
+                    squared += values[i][c] * values[i][c];
+                }
+            }
+            if (squared != 0) {
+                top.offer(i, dot / (Math.sqrt(squared) * norm));
+            }
+        }
+        final int[] found = new int[top.size()];
+        final double[] scores = new double[top.size()];
+        final int count = top.drain(found, scores);
+        final List<Neighbour> neighbours = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            neighbours.add(new Neighbour(ids[found[i]], terms.term(ids[found[i]]), scores[i]));
+        }
+        return neighbours;
     }
 
     @Override
     public String toString() {
         return "VectorSpace{" +
                 "dimensions=" + dimensions +
-                ", data=" + Arrays.deepToString(data) +
+                ", data=" + IntStream.range(0, size).mapToObj(i -> Arrays.toString(get(i))).collect(Collectors.joining(", ", "[", "]")) +
                 '}';
     }
 
     public String prettyString(@NotNull VocabSpace space) {
-        return Arrays.stream(hashes).mapToObj(h -> {
+        return IntStream.range(0, size).mapToObj(index -> {
             final StringBuilder sb = new StringBuilder();
-            final String word = space.getWord(h);
+            final String word = space.getWord(ids[index]);
             sb.append(word).append(": ");
-            final int index = Arrays.stream(hashes).boxed().toList().indexOf(h);
-            sb.append(Arrays.toString(data[index]));
+            sb.append(Arrays.toString(get(index)));
             return sb.toString();
         }).collect(Collectors.joining("\n"));
     }
 
+    // live view over a row, stays valid when the space grows or the row gets promoted
+    public class Row {
+        private final int index;
+
+        private Row(int index) {
+            this.index = index;
+        }
+
+        public int index() {
+            return index;
+        }
+
+        public int id() {
+            return ids[index];
+        }
+
+        public int dimensions() {
+            return dimensions;
+        }
+
+        public boolean isSparse() {
+            return slots[index] == -1;
+        }
+
+        public double get(int i) {
+            if (slots[index] != -1) {
+                return i < stride ? buffer[slots[index] * stride + i] : 0;
+            }
+            final int k = Arrays.binarySearch(columns[index], 0, nnz[index], i);
+            return k >= 0 ? values[index][k] : 0;
+        }
+
+        public Row set(int i, double value) {
+            if (slots[index] == -1) {
+                final int k = Arrays.binarySearch(columns[index], 0, nnz[index], i);
+                if (k >= 0) {
+                    values[index][k] = value;
+                    return this;
+                }
+                if (value == 0) {
+                    return this;
+                }
+                if (!worthDense(nnz[index] + 1, i + 1)) {
+                    insert(-k - 1, i, value);
+                    width = Math.max(width, i + 1);
+                    return this;
+                }
+                allocateSlot(index);
+            }
+            reserveColumns(i + 1);
+            buffer[slots[index] * stride + i] = value;
+            width = Math.max(width, i + 1);
+            return this;
+        }
+
+        public Row add(int i, double value) {
+            return set(i, get(i) + value);
+        }
+
+        private void insert(int at, int i, double value) {
+            final int count = nnz[index];
+            if (count == columns[index].length) {
+                columns[index] = Arrays.copyOf(columns[index], Math.max(4, count * 2));
+                values[index] = Arrays.copyOf(values[index], Math.max(4, count * 2));
+            }
+            System.arraycopy(columns[index], at, columns[index], at + 1, count - at);
+            System.arraycopy(values[index], at, values[index], at + 1, count - at);
+            columns[index][at] = i;
+            values[index][at] = value;
+            nnz[index] = count + 1;
+        }
+
+        public int nonZeros() {
+            if (slots[index] == -1) {
+                return nnz[index];
+            }
+            int count = 0;
+            for (int i = 0, offset = slots[index] * stride; i < dimensions; i++) {
+                if (buffer[offset + i] != 0) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        public double dot(@NotNull Row other) {
+            if (slots[index] != -1 && slots[other.index] != -1) {
+                final int a = slots[index] * stride;
+                final int b = slots[other.index] * stride;
+                double sum = 0;
+                for (int i = 0; i < dimensions; i++) {
+                    sum += buffer[a + i] * buffer[b + i];
+                }
+                return sum;
+            }
+            if (slots[index] != -1) {
+                return other.dot(this);
+            }
+            double sum = 0;
+            for (int k = 0; k < nnz[index] && columns[index][k] < dimensions; k++) {
+                sum += values[index][k] * other.get(columns[index][k]);
+            }
+            return sum;
+        }
+
+        public double norm() {
+            return Math.sqrt(dot(this));
+        }
+
+        // non-zero columns below the dimensions, ascending, nothing is copied
+        public void forEachNonZero(@NotNull EntryVisitor visitor) throws IOException {
+            if (slots[index] != -1) {
+                final int offset = slots[index] * stride;
+                for (int i = 0; i < dimensions; i++) {
+                    if (buffer[offset + i] != 0) {
+                        visitor.visit(i, buffer[offset + i]);
+                    }
+                }
+            } else {
+                for (int k = 0; k < nnz[index] && columns[index][k] < dimensions; k++) {
+                    if (values[index][k] != 0) {
+                        visitor.visit(columns[index][k], values[index][k]);
+                    }
+                }
+            }
+        }
+
+        public @NotNull Vector toVector() {
+            return vector(index);
+        }
+
+        public double @NotNull [] toArray() {
+            return VectorSpace.this.get(index);
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(toArray());
+        }
+    }
+
+    public static class Neighbour {
+        private final int id;
+        private final @NotNull String word;
+        private final double score;
+
+        public Neighbour(int id, @NotNull String word, double score) {
+            this.id = id;
+            this.word = word;
+            this.score = score;
+        }
+
+        public int id() {
+            return id;
+        }
+
+        public @NotNull String word() {
+            return word;
+        }
+
+        // cosine similarity, in [-1, 1]
+        public double score() {
+            return score;
+        }
+
+        @Override
+        public String toString() {
+            return "Neighbour{" +
+                    "word=" + word +
+                    ", score=" + score +
+                    '}';
+        }
+    }
+
+    // either a dense array, or sorted column/value pairs over a logical length
     public static class Vector {
-        private double[] data;
+        private double[] data; // null while sparse
+        private int[] columns;
+        private double[] values;
+        private int nnz;
+        private int length;
 
         private Vector(double[] data) {
             this.data = data;
         }
 
+        private Vector(int length, int @NotNull [] columns, double @NotNull [] values, int nnz) {
+            this.length = length;
+            this.columns = columns;
+            this.values = values;
+            this.nnz = nnz;
+        }
+
         public static Vector vector(double @NotNull []data) {
             return new Vector(data);
         }
 
+        public static Vector sparse(int length) {
+            return new Vector(length, new int[4], new double[4], 0);
+        }
+
+        // columns must be sorted and distinct over the first nnz entries
+        public static Vector sparse(int length, int @NotNull [] columns, double @NotNull [] values, int nnz) {
+            return new Vector(length, columns, values, nnz);
+        }
+
+        public boolean isSparse() {
+            return data == null;
+        }
+
+        public int length() {
+            return data == null ? length : data.length;
+        }
+
+        public int nonZeros() {
+            if (data == null) {
+                return nnz;
+            }
+            int count = 0;
+            for (double value : data) {
+                if (value != 0) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
         public double get(int index) {
+            if (data == null) {
+                final int k = Arrays.binarySearch(columns, 0, nnz, index);
+                return k >= 0 ? values[k] : 0;
+            }
             if (index >= data.length) {
                 return 0;
             }
@@ -142,6 +638,28 @@ public class VectorSpace {
         }
 
         public Vector set(int index, double value) {
+            if (data == null) {
+                if (index < 0) {
+                    throw new IndexOutOfBoundsException("Invalid index: " + index);
+                }
+                final int k = Arrays.binarySearch(columns, 0, nnz, index);
+                if (k >= 0) {
+                    values[k] = value;
+                } else if (value != 0) {
+                    final int at = -k - 1;
+                    if (nnz == columns.length) {
+                        columns = Arrays.copyOf(columns, Math.max(4, nnz * 2));
+                        values = Arrays.copyOf(values, Math.max(4, nnz * 2));
+                    }
+                    System.arraycopy(columns, at, columns, at + 1, nnz - at);
+                    System.arraycopy(values, at, values, at + 1, nnz - at);
+                    columns[at] = index;
+                    values[at] = value;
+                    nnz++;
+                }
+                length = Math.max(length, index + 1);
+                return this;
+            }
             if (index >= data.length) {
                 data = Arrays.copyOf(data, index + 1);
             }
@@ -150,6 +668,18 @@ public class VectorSpace {
         }
 
         public Vector unit() {
+            if (data == null) {
+                double sum = 0;
+                for (int k = 0; k < nnz; k++) {
+                    sum += values[k] * values[k];
+                }
+                final double norm = Math.sqrt(sum);
+                final double[] scaled = new double[nnz];
+                for (int k = 0; k < nnz; k++) {
+                    scaled[k] = values[k] / norm;
+                }
+                return new Vector(length, Arrays.copyOf(columns, nnz), scaled, nnz);
+            }
             double sum = 0;
             for (double value : data) {
                 sum += value * value;
@@ -159,6 +689,7 @@ public class VectorSpace {
         }
 
         public Vector fill(float value) {
+            densify();
             Arrays.fill(data, value);
             return this;
         }
@@ -171,14 +702,48 @@ public class VectorSpace {
             return fadd(other, 1.0);
         }
 
+        // entries of other past the length of this vector are ignored
         public Vector fadd(Vector other, double factor) {
-            for (int i = 0; i < data.length; i++) {
-                data[i] = data[i] + other.data[i] * factor;
+            if (other.data != null) {
+                densify();
+                for (int i = 0, n = Math.min(data.length, other.data.length); i < n; i++) {
+                    data[i] = data[i] + other.data[i] * factor;
+                }
+                return this;
+            }
+            if (data != null) {
+                for (int k = 0; k < other.nnz && other.columns[k] < data.length; k++) {
+                    data[other.columns[k]] = data[other.columns[k]] + other.values[k] * factor;
+                }
+                return this;
+            }
+            int bound = 0;
+            while (bound < other.nnz && other.columns[bound] < length) {
+                bound++;
             }
+            final int[] cs = new int[nnz + bound];
+            final double[] vs = new double[nnz + bound];
+            int a = 0, b = 0, n = 0;
+            while (a < nnz || b < bound) {
+                if (b == bound || (a < nnz && columns[a] < other.columns[b])) {
+                    cs[n] = columns[a];
+                    vs[n++] = values[a++];
+                } else if (a == nnz || other.columns[b] < columns[a]) {
+                    cs[n] = other.columns[b];
+                    vs[n++] = other.values[b++] * factor;
+                } else {
+                    cs[n] = columns[a];
+                    vs[n++] = values[a++] + other.values[b++] * factor;
+                }
+            }
+            columns = cs;
+            values = vs;
+            nnz = n;
             return this;
         }
 
         public Vector fadd(double @NotNull [] other, double factor) {
+            densify();
             if (other.length > data.length) {
                 data = Arrays.copyOf(data, other.length);
             }
@@ -188,7 +753,42 @@ public class VectorSpace {
             return this;
         }
 
+        public double dot(@NotNull Vector other) {
+            if (data == null) {
+                double sum = 0;
+                for (int k = 0; k < nnz; k++) {
+                    sum += values[k] * other.get(columns[k]);
+                }
+                return sum;
+            }
+            if (other.data == null) {
+                return other.dot(this);
+            }
+            double sum = 0;
+            for (int i = 0, n = Math.min(data.length, other.data.length); i < n; i++) {
+                sum += data[i] * other.data[i];
+            }
+            return sum;
+        }
+
+        private void densify() {
+            if (data == null) {
+                data = apply();
+                columns = null;
+                values = null;
+                nnz = 0;
+            }
+        }
+
+        // dense array of the vector, a sparse vector is materialised into a new array
         public double @NotNull [] apply() {
+            if (data == null) {
+                final double[] dense = new double[length];
+                for (int k = 0; k < nnz; k++) {
+                    dense[columns[k]] = values[k];
+                }
+                return dense;
+            }
             return data;
         }
 
@@ -9,16 +9,39 @@ import java.util.List;
 import java.util.function.Predicate;
 
 public class VocabSpace {
+    private final @NotNull TermDictionary terms;
     private final @NotNull List<String> vocab = new ArrayList<>();
-    private int @NotNull [] hashes = new int[0];
+    private int @NotNull [] ids = new int[16];
+    private int @NotNull [] positions = new int[0]; // term id -> vocab index, -1 when absent
+
+    public VocabSpace(@NotNull TermDictionary terms) {
+        this.terms = terms;
+    }
 
     public void addWord(@NotNull String word) {
-        hashes = Arrays.copyOf(hashes, vocab.size() + 1);
-        hashes[vocab.size()] = word.hashCode();
-        vocab.add(word);
+        addId(terms.id(word));
+    }
+
+    public void addId(int id) {
+        if (getIndexOf(id) != -1) {
+            return;
+        }
+        final int size = vocab.size();
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        if (id >= positions.length) {
+            final int length = positions.length;
+            positions = Arrays.copyOf(positions, Math.max(id + 1, Math.max(terms.size(), length * 2)));
+            Arrays.fill(positions, length, positions.length, -1);
+        }
+        ids[size] = id;
+        positions[id] = size;
+        vocab.add(terms.term(id));
     }
 
     public void addWords(@NotNull Collection<String> words) {
+        resize(vocab.size() + words.size());
         words.forEach(this::addWord);
     }
 
@@ -26,13 +49,19 @@ public class VocabSpace {
         return vocab;
     }
 
+    public @NotNull TermDictionary getTerms() {
+        return terms;
+    }
+
+    // reserve room for the given amount of words
     public void resize(int size) {
-        hashes = Arrays.copyOf(hashes, size);
+        if (size > ids.length) {
+            ids = Arrays.copyOf(ids, size);
+        }
     }
 
     public boolean contain(@NotNull String word) {
-        final int code = word.hashCode();
-        return Arrays.stream(hashes).anyMatch(h -> code == h);
+        return getIndexOf(word) != -1;
     }
 
     public void merge(@NotNull VocabSpace space) {
@@ -40,26 +69,18 @@ public class VocabSpace {
     }
 
     public int getIndexOf(@NotNull String word) {
-        int code = word.hashCode();
-        for (int i = 0; i < hashes.length; i++) {
-            if (hashes[i] == code) {
-                return i;
-            }
-        }
-        return -1;
+        return getIndexOf(terms.find(word));
     }
 
-    public int getIndexOf(int code) {
-        for (int i = 0; i < hashes.length; i++) {
-            if (hashes[i] == code) {
-                return i;
-            }
+    public int getIndexOf(int id) {
+        if (id < 0 || id >= positions.length) {
+            return -1;
         }
-        return -1;
+        return positions[id];
     }
 
-    public String getWord(int code) {
-        int index = getIndexOf(code);
+    public String getWord(int id) {
+        int index = getIndexOf(id);
         if (index != -1) {
             return vocab.get(index);
         }
@@ -70,6 +91,10 @@ public class VocabSpace {
         return vocab.get(index);
     }
 
+    public int idAt(int index) {
+        return ids[index];
+    }
+
     public int size() {
         return vocab.size();
     }
@@ -78,7 +103,7 @@ public class VocabSpace {
     public String toString() {
         return "VocabSpace{" +
                 "vocab=" + vocab +
-                ", hashes=" + Arrays.toString(hashes) +
+                ", ids=" + Arrays.toString(Arrays.copyOf(ids, vocab.size())) +
                 '}';
     }
 }
@@ -0,0 +1,431 @@
+package org.example.wag.export;
+
+import org.example.wag.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+// writes spaces and subjects record by record, nothing larger than a record is held in memory
+public class Exporter implements Flushable, Closeable {
+    public enum Format {
+        PRETTY,     // same layout as the prettyString methods
+        EDGE_LIST,  // tab separated, one undirected link (or one vector) per line
+        GRAPHML,    // one GraphML document per call, vectors are not supported
+        JSON_LINES  // one JSON object per node, vector or subject
+    }
+
+    private final @NotNull Writer out;
+    private final @NotNull Format format;
+
+    public Exporter(@NotNull Writer out, @NotNull Format format) {
+        this.out = out;
+        this.format = format;
+    }
+
+    public Exporter(@NotNull OutputStream out, @NotNull Format format) {
+        this(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)), format);
+    }
+
+    public @NotNull Format getFormat() {
+        return format;
+    }
+
+    public Exporter graph(@NotNull GraphSpace graph) throws IOException {
+        final TermDictionary terms = graph.getTerms();
+        switch (format) {
+            case PRETTY -> {
+                for (int node = 0; node < graph.size(); node++) {
+                    // duplicated nodes print the links of the first node holding their word
+                    final int first = graph.getIndex(terms.term(graph.idAt(node)));
+                    out.write(terms.term(graph.idAt(node)));
+                    out.write(": [");
+                    final boolean[] separate = {false};
+                    graph.forEachLink(first, (neighbour, positive, negative) -> {
+                        if (positive != negative) {
+                            link(separate, positive < negative, terms.term(graph.idAt(neighbour)));
+                        }
+                    });
+                    out.write("]\n");
+                }
+            }
+            case EDGE_LIST -> {
+                for (int node = 0; node < graph.size(); node++) {
+                    final int source = node;
+                    graph.forEachLink(node, (neighbour, positive, negative) -> {
+                        if (source <= neighbour) {
+                            edge(terms.term(graph.idAt(source)), terms.term(graph.idAt(neighbour)), positive, negative);
+                        }
+                    });
+                }
+            }
+            case GRAPHML -> {
+                graphmlHeader();
+                graphmlGraph(graph, "G", "n");
+                out.write("</graphml>\n");
+            }
+            case JSON_LINES -> {
+                for (int node = 0; node < graph.size(); node++) {
+                    out.write("{\"node\":");
+                    out.write(Integer.toString(node));
+                    out.write(",\"word\":");
+                    json(terms.term(graph.idAt(node)));
+                    out.write(",\"links\":[");
+                    final boolean[] separate = {false};
+                    graph.forEachLink(node, (neighbour, positive, negative) -> {
+                        jsonLink(separate, neighbour, terms.term(graph.idAt(neighbour)), positive, negative);
+                    });
+                    out.write("]}\n");
+                }
+            }
+        }
+        return this;
+    }
+
+    public Exporter vectors(@NotNull VectorSpace space) throws IOException {
+        final TermDictionary terms = space.getTerms();
+        final int dimensions = space.dimensions();
+        switch (format) {
+            case PRETTY -> {
+                for (int index = 0; index < space.size(); index++) {
+                    out.write(terms.term(space.idAt(index)));
+                    out.write(": [");
+                    final int[] next = {0};
+                    space.row(index).forEachNonZero((column, value) -> {
+                        zeros(next[0], column, dimensions);
+                        if (column != 0) {
+                            out.write(", ");
+                        }
+                        out.write(Double.toString(value));
+                        next[0] = column + 1;
+                    });
+                    zeros(next[0], dimensions, dimensions);
+                    out.write("]\n");
+                }
+            }
+            case EDGE_LIST -> {
+                for (int index = 0; index < space.size(); index++) {
+                    out.write(terms.term(space.idAt(index)));
+                    out.write('\t');
+                    out.write(Integer.toString(dimensions));
+                    space.row(index).forEachNonZero((column, value) -> {
+                        out.write('\t');
+                        out.write(Integer.toString(column));
+                        out.write(':');
+                        out.write(Double.toString(value));
+                    });
+                    out.write('\n');
+                }
+            }
+            case GRAPHML -> throw new IllegalArgumentException("GraphML cannot hold vectors");
+            case JSON_LINES -> {
+                final StringBuilder values = new StringBuilder();
+                for (int index = 0; index < space.size(); index++) {
+                    values.setLength(0);
+                    out.write("{\"word\":");
+                    json(terms.term(space.idAt(index)));
+                    out.write(",\"dimensions\":");
+                    out.write(Integer.toString(dimensions));
+                    out.write(",\"indices\":[");
+                    final boolean[] separate = {false};
+                    space.row(index).forEachNonZero((column, value) -> {
+                        if (separate[0]) {
+                            out.write(',');
+                            values.append(',');
+                        }
+                        separate[0] = true;
+                        out.write(Integer.toString(column));
+                        values.append(value);
+                    });
+                    out.write("],\"values\":[");
+                    out.append(values);
+                    out.write("]}\n");
+                }
+            }
+        }
+        return this;
+    }
+
+    public Exporter subjects(@NotNull Collection<Subject> subjects) throws IOException {
+        if (format == Format.GRAPHML) {
+            graphmlHeader();
+        }
+        int ordinal = 0;
+        for (Subject subject : subjects) {
+            subject(subject, ordinal++);
+        }
+        if (format == Format.GRAPHML) {
+            out.write("</graphml>\n");
+        }
+        return this;
+    }
+
+    private void subject(@NotNull Subject subject, int ordinal) throws IOException {
+        final SubjectGraph graph = subject.getGraph();
+        final TermDictionary terms = graph.getTerms();
+        final String name = terms.term(subject.getName());
+        switch (format) {
+            case PRETTY -> {
+                out.write("{\nname: '");
+                out.write(name);
+                out.write("'\naliases: [");
+                final int[] aliases = subject.getAliases();
+                for (int i = 0; i < aliases.length; i++) {
+                    if (i != 0) {
+                        out.write(", ");
+                    }
+                    out.write(terms.term(aliases[i]));
+                }
+                out.write("]\n");
+                out.write(subject.getGender().name());
+                out.write("\ngspace: \n");
+                for (int node = 0; node < graph.size(); node++) {
+                    out.write(terms.term(graph.idAt(node)));
+                    out.write(": [");
+                    final boolean[] separate = {false};
+                    graph.forEachLink(node, (neighbour, positive, negative) -> {
+                        if (positive != negative) {
+                            link(separate, positive < negative, terms.term(graph.idAt(neighbour)));
+                        }
+                    });
+                    out.write("]\n");
+                }
+                out.write("}\n");
+            }
+            case EDGE_LIST -> {
+                for (int node = 0; node < graph.size(); node++) {
+                    final int source = node;
+                    graph.forEachLink(node, (neighbour, positive, negative) -> {
+                        if (source <= neighbour) {
+                            out.write(name);
+                            out.write('\t');
+                            edge(terms.term(graph.idAt(source)), terms.term(graph.idAt(neighbour)), positive, negative);
+                        }
+                    });
+                }
+            }
+            case GRAPHML -> {
+                out.write("  <graph id=\"s");
+                out.write(Integer.toString(ordinal));
+                out.write("\" edgedefault=\"undirected\">\n");
+                out.write("    <data key=\"subject\">");
+                xml(name);
+                out.write("</data>\n");
+                for (int node = 0; node < graph.size(); node++) {
+                    graphmlNode("s" + ordinal + "n", node, terms.term(graph.idAt(node)));
+                }
+                for (int node = 0; node < graph.size(); node++) {
+                    final int source = node;
+                    graph.forEachLink(node, (neighbour, positive, negative) -> {
+                        if (source <= neighbour) {
+                            graphmlEdge("s" + ordinal + "n", source, neighbour, positive, negative);
+                        }
+                    });
+                }
+                out.write("  </graph>\n");
+            }
+            case JSON_LINES -> {
+                out.write("{\"name\":");
+                json(name);
+                out.write(",\"aliases\":[");
+                final int[] aliases = subject.getAliases();
+                for (int i = 0; i < aliases.length; i++) {
+                    if (i != 0) {
+                        out.write(',');
+                    }
+                    json(terms.term(aliases[i]));
+                }
+                out.write("],\"gender\":\"");
+                out.write(subject.getGender().name());
+                out.write("\",\"links\":[");
+                final boolean[] separate = {false};
+                for (int node = 0; node < graph.size(); node++) {
+                    final int source = node;
+                    graph.forEachLink(node, (neighbour, positive, negative) -> {
+                        if (source <= neighbour) {
+                            if (separate[0]) {
+                                out.write(',');
+                            }
+                            separate[0] = true;
+                            out.write("{\"source\":");
+                            json(terms.term(graph.idAt(source)));
+                            out.write(",\"target\":");
+                            json(terms.term(graph.idAt(neighbour)));
+                            counts(positive, negative);
+                            out.write('}');
+                        }
+                    });
+                }
+                out.write("]}\n");
+            }
+        }
+    }
+
+    private void link(boolean @NotNull [] separate, boolean negated, @NotNull String word) throws IOException {
+        if (separate[0]) {
+            out.write(", ");
+        }
+        separate[0] = true;
+        if (negated) {
+            out.write("not ");
+        }
+        out.write(word);
+    }
+
+    private void edge(@NotNull String source, @NotNull String target, int positive, int negative) throws IOException {
+        out.write(source);
+        out.write('\t');
+        out.write(target);
+        out.write('\t');
+        out.write(Integer.toString(positive - negative));
+        out.write('\t');
+        out.write(Integer.toString(positive));
+        out.write('\t');
+        out.write(Integer.toString(negative));
+        out.write('\n');
+    }
+
+    private void zeros(int from, int to, int dimensions) throws IOException {
+        for (int i = from; i < to && i < dimensions; i++) {
+            if (i != 0) {
+                out.write(", ");
+            }
+            out.write("0.0");
+        }
+    }
+
+    private void counts(int positive, int negative) throws IOException {
+        out.write(",\"weight\":");
+        out.write(Integer.toString(positive - negative));
+        out.write(",\"positive\":");
+        out.write(Integer.toString(positive));
+        out.write(",\"negative\":");
+        out.write(Integer.toString(negative));
+    }
+
+    private void jsonLink(boolean @NotNull [] separate, int target, @NotNull String word, int positive, int negative) throws IOException {
+        if (separate[0]) {
+            out.write(',');
+        }
+        separate[0] = true;
+        out.write("{\"target\":");
+        out.write(Integer.toString(target));
+        out.write(",\"word\":");
+        json(word);
+        counts(positive, negative);
+        out.write('}');
+    }
+
+    private void graphmlHeader() throws IOException {
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        out.write("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n");
+        out.write("  <key id=\"subject\" for=\"graph\" attr.name=\"subject\" attr.type=\"string\"/>\n");
+        out.write("  <key id=\"word\" for=\"node\" attr.name=\"word\" attr.type=\"string\"/>\n");
+        out.write("  <key id=\"weight\" for=\"edge\" attr.name=\"weight\" attr.type=\"int\"/>\n");
+        out.write("  <key id=\"positive\" for=\"edge\" attr.name=\"positive\" attr.type=\"int\"/>\n");
+        out.write("  <key id=\"negative\" for=\"edge\" attr.name=\"negative\" attr.type=\"int\"/>\n");
+    }
+
+    private void graphmlGraph(@NotNull GraphSpace graph, @NotNull String id, @NotNull String prefix) throws IOException {
+        final TermDictionary terms = graph.getTerms();
+        out.write("  <graph id=\"");
+        out.write(id);
+        out.write("\" edgedefault=\"undirected\">\n");
+        for (int node = 0; node < graph.size(); node++) {
+            graphmlNode(prefix, node, terms.term(graph.idAt(node)));
+        }
+        for (int node = 0; node < graph.size(); node++) {
+            final int source = node;
+            graph.forEachLink(node, (neighbour, positive, negative) -> {
+                if (source <= neighbour) {
+                    graphmlEdge(prefix, source, neighbour, positive, negative);
+                }
+            });
+        }
+        out.write("  </graph>\n");
+    }
+
+    private void graphmlNode(@NotNull String prefix, int node, @NotNull String word) throws IOException {
+        out.write("    <node id=\"");
+        out.write(prefix);
+        out.write(Integer.toString(node));
+        out.write("\"><data key=\"word\">");
+        xml(word);
+        out.write("</data></node>\n");
+    }
+
+    private void graphmlEdge(@NotNull String prefix, int source, int target, int positive, int negative) throws IOException {
+        out.write("    <edge source=\"");
+        out.write(prefix);
+        out.write(Integer.toString(source));
+        out.write("\" target=\"");
+        out.write(prefix);
+        out.write(Integer.toString(target));
+        out.write("\"><data key=\"weight\">");
+        out.write(Integer.toString(positive - negative));
+        out.write("</data><data key=\"positive\">");
+        out.write(Integer.toString(positive));
+        out.write("</data><data key=\"negative\">");
+        out.write(Integer.toString(negative));
+        out.write("</data></edge>\n");
+    }
+
+    private void xml(@NotNull String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '&' -> out.write("&amp;");
+                case '<' -> out.write("&lt;");
+                case '>' -> out.write("&gt;");
+                case '"' -> out.write("&quot;");
+                case '\'' -> out.write("&apos;");
+                default -> out.write(c);
+            }
+        }
+    }
+
+    private void json(@NotNull String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+                }
+            }
+        }
+        out.write('"');
+    }
+
+    public Exporter write(@NotNull String text) throws IOException {
+        out.write(text);
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    @Override
+    public String toString() {
+        return "Exporter{" +
+                "format=" + format +
+                '}';
+    }
+}
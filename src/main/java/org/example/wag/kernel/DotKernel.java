@@ -0,0 +1,34 @@
+package org.example.wag.kernel;
+
+import org.jetbrains.annotations.NotNull;
+
+// dot product over slices of double arrays, backed by the incubating Vector API when the module is resolved
+public interface DotKernel {
+    double dot(double @NotNull [] a, int aOffset, double @NotNull [] b, int bOffset, int length);
+
+    default double dot(double @NotNull [] a, double @NotNull [] b) {
+        return dot(a, 0, b, 0, Math.min(a.length, b.length));
+    }
+
+    static @NotNull DotKernel get() {
+        return Holder.KERNEL;
+    }
+
+    final class Holder {
+        private static final @NotNull DotKernel KERNEL = load();
+
+        private Holder() {
+        }
+
+        // the simd class is only touched when jdk.incubator.vector is part of the boot layer (--add-modules jdk.incubator.vector)
+        private static @NotNull DotKernel load() {
+            if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+                try {
+                    return (DotKernel) Class.forName("org.example.wag.kernel.SimdDotKernel").getDeclaredConstructor().newInstance();
+                } catch (ReflectiveOperationException | LinkageError ignored) {
+                }
+            }
+            return new ScalarDotKernel();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.wag.kernel;
+
+import org.jetbrains.annotations.NotNull;
+
+public class ScalarDotKernel implements DotKernel {
+    @Override
+    public double dot(double @NotNull [] a, int aOffset, double @NotNull [] b, int bOffset, int length) {
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String toString() {
+        return "ScalarDotKernel{}";
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.wag.kernel;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import org.jetbrains.annotations.NotNull;
+
+public class SimdDotKernel implements DotKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public double dot(double @NotNull [] a, int aOffset, double @NotNull [] b, int bOffset, int length) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        final int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            final DoubleVector va = DoubleVector.fromArray(SPECIES, a, aOffset + i);
+            final DoubleVector vb = DoubleVector.fromArray(SPECIES, b, bOffset + i);
+            acc = va.fma(vb, acc);
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String toString() {
+        return "SimdDotKernel{" +
+                "lanes=" + SPECIES.length() +
+                '}';
+    }
+}
@@ -1,87 +1,162 @@
 package org.example.wag.regex;
 
 import edu.stanford.nlp.ling.CoreLabel;
+import org.example.wag.Label;
+import org.example.wag.TokenBuffer;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
 import java.util.stream.Collectors;
 
+// patterns over POS tags, e.g. "<NNP>+<VB.*>(<DT>|<JJ>)*<NN>", compiled to a Thompson NFA over tag codes
 public abstract class Pattern {
-    protected abstract boolean test(@NotNull List<CoreLabel> labels);
-    protected abstract List<CoreLabel> match(@NotNull List<CoreLabel> labels);
-    protected abstract int skip(@NotNull List<CoreLabel> labels);
-
-    private static TagPattern tag(@NotNull String pattern, int i) {
-        int a = pattern.indexOf('>', i);
-        if (a == -1)
-            throw new IllegalArgumentException("Invalid pattern");
-        return new TagPattern(pattern.substring(i, a));
-    }
-
-    private static Pattern group(@NotNull String pattern, int i, boolean inGroup) {
-        SequencePattern sequencePattern = new SequencePattern();
-
-        for (int j = i; j < pattern.length(); j++) {
-            char c = pattern.charAt(j);
-            if (c == '<') {
-                sequencePattern.add(tag(pattern, j + 1));
-                j = pattern.indexOf('>', j + 1);
-            } else if (c == '(') {
-                sequencePattern.add(group(pattern, j + 1, true));
-                j = pattern.indexOf(')', j + 1);
-            } else if (c == ')' && inGroup) {
-                break;
-            } else if (c == '|') {
-                return new AlternatePattern(sequencePattern, group(pattern, j + 1, inGroup));
-            } else {
-                sequencePattern.mod(c);
+    public interface MatchVisitor {
+        void visit(int start, int end);
+    }
+
+    private volatile Program program = null;
+
+    abstract void emit(@NotNull Program program);
+
+    // recursive descent, alternation < sequence < quantified atom
+    private static final class Parser {
+        private final @NotNull String pattern;
+        private int i = 0;
+
+        Parser(@NotNull String pattern) {
+            this.pattern = pattern;
+        }
+
+        Pattern parse() {
+            final Pattern result = alternation();
+            if (i != pattern.length()) {
+                throw new IllegalArgumentException("Invalid pattern");
             }
+            return result;
         }
-        return sequencePattern;
-    }
 
-    public List<Result> consume(@NotNull List<CoreLabel> labels) {
-        List<Result> results = new ArrayList<>();
-        List<CoreLabel> list = labels;
-        while (!list.isEmpty()) {
-            if (test(list)) {
-                List<CoreLabel> match = match(list);
-                results.add(new Result(match));
-                list = list.subList(skip(list), list.size());
-            } else {
-                list = list.subList(1, list.size());
+        private Pattern alternation() {
+            final SequencePattern sequence = sequence();
+            if (i < pattern.length() && pattern.charAt(i) == '|') {
+                i++;
+                return new AlternatePattern(sequence, alternation());
             }
+            return sequence;
         }
+
+        private SequencePattern sequence() {
+            final SequencePattern sequence = new SequencePattern();
+            while (i < pattern.length()) {
+                final char c = pattern.charAt(i);
+                if (c == '<') {
+                    final int a = pattern.indexOf('>', i + 1);
+                    if (a == -1)
+                        throw new IllegalArgumentException("Invalid pattern");
+                    sequence.add(new TagPattern(pattern.substring(i + 1, a)));
+                    i = a + 1;
+                } else if (c == '(') {
+                    i++;
+                    sequence.add(alternation());
+                    if (i >= pattern.length() || pattern.charAt(i) != ')')
+                        throw new IllegalArgumentException("Invalid pattern");
+                    i++;
+                } else if (c == ')' || c == '|') {
+                    break;
+                } else {
+                    sequence.mod(c);
+                    i++;
+                }
+            }
+            return sequence;
+        }
+    }
+
+    private Program program() {
+        Program compiled = program;
+        if (compiled == null) {
+            compiled = new Program();
+            emit(compiled);
+            compiled.emit(Program.MATCH, null, -1, -1);
+            compiled.seal();
+            program = compiled;
+        }
+        return compiled;
+    }
+
+    // leftmost-longest, non overlapping, non empty matches as [start, end) token ranges
+    public void forEachMatch(int @NotNull [] codes, int length, @NotNull MatchVisitor visitor) {
+        new Program.Scanner(program()).scan(codes, length, visitor);
+    }
+
+    public void forEachMatch(@NotNull TokenBuffer tokens, @NotNull MatchVisitor visitor) {
+        forEachMatch(codes(tokens), tokens.size(), visitor);
+    }
+
+    public List<Result> consume(@NotNull List<CoreLabel> labels) {
+        final List<Result> results = new ArrayList<>();
+        forEachMatch(codes(labels), labels.size(), (start, end) -> results.add(new Result(List.copyOf(labels.subList(start, end)), start, end)));
         return results;
     }
 
+    static int @NotNull [] codes(@NotNull TokenBuffer tokens) {
+        final int[] codes = new int[tokens.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = tokens.tagCode(i);
+        }
+        return codes;
+    }
+
+    static int @NotNull [] codes(@NotNull List<CoreLabel> labels) {
+        final int[] codes = new int[labels.size()];
+        int i = 0;
+        for (CoreLabel label : labels) {
+            codes[i++] = Label.tagCode(label.tag());
+        }
+        return codes;
+    }
+
+    // TAG states a match can end with
+    int @NotNull [] last() {
+        return program().last();
+    }
+
+    boolean accepts(int state, int code) {
+        return program().accepts(state, code);
+    }
+
+    Program.@NotNull Scanner scanner() {
+        return new Program.Scanner(program());
+    }
+
     public static Pattern compile(@NotNull String pattern) {
-        return group(pattern, 0, false);
+        final Pattern compiled = new Parser(pattern).parse();
+        compiled.program();
+        return compiled;
     }
 }
 
 class TagPattern extends Pattern {
     private final java.util.regex.Pattern tag;
+    private final boolean @NotNull [] known; // decision for the tag codes registered at compile time
 
     TagPattern(String regex) {
         this.tag = java.util.regex.Pattern.compile(regex);
+        this.known = new boolean[Label.tagCount()];
+        for (int code = 0; code < known.length; code++) {
+            known[code] = tag.matcher(Label.tagName(code)).find();
+        }
     }
 
-    @Override
-    protected boolean test(@NotNull List<CoreLabel> labels) {
-        if (labels.isEmpty())
-            return false;
-        return tag.matcher(labels.getFirst().tag()).find();
-    }
-
-    @Override
-    protected List<CoreLabel> match(@NotNull List<CoreLabel> labels) {
-        return test(labels) ? List.of(labels.getFirst()) : Collections.emptyList();
+    boolean accepts(int code) {
+        if (code < known.length) {
+            return known[code];
+        }
+        return tag.matcher(Label.tagName(code)).find();
     }
 
     @Override
-    protected int skip(@NotNull List<CoreLabel> labels) {
-        return test(labels) ? 1 : 0;
+    void emit(@NotNull Program program) {
+        program.emit(Program.TAG, this, program.size() + 1, -1);
     }
 
     @Override
@@ -121,34 +196,25 @@ class ModPattern extends Pattern {
     }
 
     @Override
-    protected boolean test(@NotNull List<CoreLabel> labels) {
-        return switch (mod) {
-            case ZERO_OR_MORE, ZERO_OR_ONE -> !labels.isEmpty();
-            case ONE_OR_MORE -> pattern.test(labels);
-        };
-    }
-
-    @Override
-    protected List<CoreLabel> match(@NotNull List<CoreLabel> labels) {
-        if (!pattern.test(labels))
-            return Collections.emptyList();
-        return switch (mod) {
-            case ZERO_OR_ONE -> pattern.match(labels);
-            case ONE_OR_MORE, ZERO_OR_MORE -> {
-                List<CoreLabel> result = new ArrayList<>();
-                List<CoreLabel> list = labels;
-                while (pattern.test(list)) {
-                    result.addAll(pattern.match(list));
-                    list = list.subList(pattern.skip(list), list.size());
-                }
-                yield result;
+    void emit(@NotNull Program program) {
+        switch (mod) {
+            case ZERO_OR_MORE -> {
+                final int split = program.emit(Program.SPLIT, null, program.size() + 1, -1);
+                pattern.emit(program);
+                program.emit(Program.JUMP, null, split, -1);
+                program.alt(split, program.size());
             }
-        };
-    }
-
-    @Override
-    protected int skip(@NotNull List<CoreLabel> labels) {
-        return match(labels).size();
+            case ONE_OR_MORE -> {
+                final int loop = program.size();
+                pattern.emit(program);
+                program.emit(Program.SPLIT, null, loop, program.size() + 1);
+            }
+            case ZERO_OR_ONE -> {
+                final int split = program.emit(Program.SPLIT, null, program.size() + 1, -1);
+                pattern.emit(program);
+                program.alt(split, program.size());
+            }
+        }
     }
 
     @Override
@@ -169,45 +235,17 @@ class SequencePattern extends Pattern {
     }
 
     void mod(char mod) {
+        if (patterns.isEmpty())
+            throw new IllegalArgumentException("Invalid mod");
         Pattern pattern = patterns.removeLast();
         patterns.add(new ModPattern(pattern, String.valueOf(mod)));
     }
 
     @Override
-    protected boolean test(@NotNull List<CoreLabel> labels) {
-        List<CoreLabel> list = labels;
-        for (Pattern pat : patterns) {
-            if (!pat.test(list))
-                return false;
-            list = list.subList(pat.skip(list), list.size());
-        }
-        return true;
-    }
-
-    @Override
-    protected List<CoreLabel> match(@NotNull List<CoreLabel> labels) {
-        List<CoreLabel> list = labels;
-        List<CoreLabel> result = new ArrayList<>();
-        for (Pattern pat : patterns) {
-            if (!pat.test(list))
-                return Collections.emptyList();
-            result.addAll(pat.match(list));
-            list = list.subList(pat.skip(list), list.size());
-        }
-        return result;
-    }
-
-    @Override
-    protected int skip(@NotNull List<CoreLabel> labels) {
-        List<CoreLabel> list = labels;
-        int count = 0;
-        for (Pattern pat : patterns) {
-            if (!pat.test(list))
-                return count;
-            count += pat.skip(list);
-            list = list.subList(pat.skip(list), list.size());
+    void emit(@NotNull Program program) {
+        for (Pattern pattern : patterns) {
+            pattern.emit(program);
         }
-        return count;
     }
 
     @Override
@@ -226,26 +264,13 @@ class AlternatePattern extends Pattern {
     }
 
     @Override
-    protected boolean test(@NotNull List<CoreLabel> labels) {
-        return a.test(labels) || b.test(labels);
-    }
-
-    @Override
-    public List<CoreLabel> match(@NotNull List<CoreLabel> labels) {
-        if (a.test(labels))
-            return a.match(labels);
-        if (b.test(labels))
-            return b.match(labels);
-        return Collections.emptyList();
-    }
-
-    @Override
-    protected int skip(@NotNull List<CoreLabel> labels) {
-        if (a.test(labels))
-            return a.skip(labels);
-        if (b.test(labels))
-            return b.skip(labels);
-        return 0;
+    void emit(@NotNull Program program) {
+        final int split = program.emit(Program.SPLIT, null, program.size() + 1, -1);
+        a.emit(program);
+        final int jump = program.emit(Program.JUMP, null, -1, -1);
+        program.alt(split, program.size());
+        b.emit(program);
+        program.out(jump, program.size());
     }
 
     @Override
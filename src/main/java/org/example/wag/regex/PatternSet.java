@@ -0,0 +1,152 @@
+package org.example.wag.regex;
+
+import edu.stanford.nlp.ling.CoreLabel;
+import org.example.wag.Label;
+import org.example.wag.TokenBuffer;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// many patterns matched in a single backward pass over the tokens, each one reports the same matches as its own forEachMatch,
+// the final states of all patterns are merged into one table by tag code so a token only wakes up the patterns it can end
+public class PatternSet {
+    public interface MatchVisitor {
+        void visit(int pattern, int start, int end);
+    }
+
+    private final @NotNull List<Pattern> patterns = new ArrayList<>();
+    private final @NotNull List<int @NotNull []> lasts = new ArrayList<>();
+    private int @NotNull [] @NotNull [] starters = new int[0][]; // tag code -> patterns that can end with it
+
+    public int add(@NotNull String pattern) {
+        return add(Pattern.compile(pattern));
+    }
+
+    // id of the pattern in the reported matches
+    public synchronized int add(@NotNull Pattern pattern) {
+        final int id = patterns.size();
+        patterns.add(pattern);
+        lasts.add(pattern.last());
+
+        final int codes = Label.tagCount();
+        final int[][] table = Arrays.copyOf(starters, codes);
+        for (int code = 0; code < codes; code++) {
+            if (code >= starters.length) {
+                table[code] = starters(code, id);
+            } else if (ends(id, code)) {
+                table[code] = Arrays.copyOf(table[code], table[code].length + 1);
+                table[code][table[code].length - 1] = id;
+            }
+        }
+        starters = table;
+        return id;
+    }
+
+    private boolean ends(int id, int code) {
+        final Pattern pattern = patterns.get(id);
+        for (int state : lasts.get(id)) {
+            if (pattern.accepts(state, code)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // patterns up to the given id that can end with the tag code, for codes registered after the table was built
+    private int @NotNull [] starters(int code, int upTo) {
+        int[] ids = new int[0];
+        for (int id = 0; id <= upTo; id++) {
+            if (ends(id, code)) {
+                ids = Arrays.copyOf(ids, ids.length + 1);
+                ids[ids.length - 1] = id;
+            }
+        }
+        return ids;
+    }
+
+    public void forEachMatch(int @NotNull [] codes, int length, @NotNull MatchVisitor visitor) {
+        final int[][] table;
+        final int count;
+        synchronized (this) {
+            table = starters;
+            count = patterns.size();
+        }
+        final Program.Scanner[] scanners = new Program.Scanner[count];
+        final boolean[] active = new boolean[count];
+        final int[] actives = new int[count];
+        int activeCount = 0;
+
+        // one backward pass, a token wakes up the patterns that can end with it
+        for (int i = length - 1; i >= 0; i--) {
+            final int code = codes[i];
+            for (int id : code < table.length ? table[code] : starters(code, count - 1)) {
+                if (id >= count || active[id]) {
+                    continue;
+                }
+                if (scanners[id] == null) {
+                    scanners[id] = patterns.get(id).scanner();
+                }
+                active[id] = true;
+                actives[activeCount++] = id;
+            }
+
+            int kept = 0;
+            for (int k = 0; k < activeCount; k++) {
+                final int id = actives[k];
+                scanners[id].feed(i, code);
+                if (scanners[id].isIdle()) {
+                    active[id] = false;
+                } else {
+                    actives[kept++] = id;
+                }
+            }
+            activeCount = kept;
+        }
+        for (int id = 0; id < count; id++) {
+            if (scanners[id] != null) {
+                final int pattern = id;
+                scanners[id].report((start, end) -> visitor.visit(pattern, start, end));
+            }
+        }
+    }
+
+    public void forEachMatch(@NotNull TokenBuffer tokens, @NotNull MatchVisitor visitor) {
+        forEachMatch(Pattern.codes(tokens), tokens.size(), visitor);
+    }
+
+    public void forEachMatch(@NotNull List<CoreLabel> labels, @NotNull MatchVisitor visitor) {
+        forEachMatch(Pattern.codes(labels), labels.size(), visitor);
+    }
+
+    // (pattern, start, end) triples, grouped by pattern
+    public int @NotNull [] matches(@NotNull TokenBuffer tokens) {
+        final int[][] matches = {new int[24]};
+        final int[] size = {0};
+        forEachMatch(tokens, (pattern, start, end) -> {
+            if (size[0] + 3 > matches[0].length) {
+                matches[0] = Arrays.copyOf(matches[0], matches[0].length * 2);
+            }
+            matches[0][size[0]++] = pattern;
+            matches[0][size[0]++] = start;
+            matches[0][size[0]++] = end;
+        });
+        return Arrays.copyOf(matches[0], size[0]);
+    }
+
+    public @NotNull Pattern get(int id) {
+        return patterns.get(id);
+    }
+
+    public int size() {
+        return patterns.size();
+    }
+
+    @Override
+    public String toString() {
+        return "PatternSet{" +
+                "patterns=" + patterns +
+                '}';
+    }
+}
@@ -0,0 +1,257 @@
+package org.example.wag.regex;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+// Thompson NFA of a pattern over tag codes, only TAG states consume a token
+final class Program {
+    static final byte TAG = 0;
+    static final byte SPLIT = 1;
+    static final byte JUMP = 2;
+    static final byte MATCH = 3;
+
+    private byte @NotNull [] ops = new byte[16];
+    private int @NotNull [] outs = new int[16];
+    private int @NotNull [] alts = new int[16];
+    private @NotNull TagPattern @NotNull [] tags = new TagPattern[16];
+    private int size = 0;
+
+    int emit(byte op, TagPattern tag, int out, int alt) {
+        if (size == ops.length) {
+            ops = Arrays.copyOf(ops, size * 2);
+            outs = Arrays.copyOf(outs, size * 2);
+            alts = Arrays.copyOf(alts, size * 2);
+            tags = Arrays.copyOf(tags, size * 2);
+        }
+        ops[size] = op;
+        tags[size] = tag;
+        outs[size] = out;
+        alts[size] = alt;
+        return size++;
+    }
+
+    void out(int state, int out) {
+        outs[state] = out;
+    }
+
+    void alt(int state, int alt) {
+        alts[state] = alt;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // reversed edges, filled by seal() once the program is complete
+    private int @NotNull [] epsilonOffsets = new int[1];
+    private int @NotNull [] epsilonSources = new int[0]; // states reaching a state without consuming
+    private int @NotNull [] tagOffsets = new int[1];
+    private int @NotNull [] tagSources = new int[0]; // TAG states whose token leads to a state
+    private int @NotNull [] last = new int[0];
+
+    // the program ends with its MATCH state, the reversed edges are built for the backward scan
+    void seal() {
+        final int[] epsilonCounts = new int[size + 1];
+        final int[] tagCounts = new int[size + 1];
+        for (int state = 0; state < size; state++) {
+            switch (ops[state]) {
+                case TAG -> tagCounts[outs[state] + 1]++;
+                case JUMP -> epsilonCounts[outs[state] + 1]++;
+                case SPLIT -> {
+                    epsilonCounts[outs[state] + 1]++;
+                    epsilonCounts[alts[state] + 1]++;
+                }
+                default -> {}
+            }
+        }
+        for (int state = 0; state < size; state++) {
+            epsilonCounts[state + 1] += epsilonCounts[state];
+            tagCounts[state + 1] += tagCounts[state];
+        }
+        epsilonOffsets = epsilonCounts.clone();
+        tagOffsets = tagCounts.clone();
+        epsilonSources = new int[epsilonCounts[size]];
+        tagSources = new int[tagCounts[size]];
+        for (int state = 0; state < size; state++) {
+            switch (ops[state]) {
+                case TAG -> tagSources[tagCounts[outs[state]]++] = state;
+                case JUMP -> epsilonSources[epsilonCounts[outs[state]]++] = state;
+                case SPLIT -> {
+                    epsilonSources[epsilonCounts[outs[state]]++] = state;
+                    epsilonSources[epsilonCounts[alts[state]]++] = state;
+                }
+                default -> {}
+            }
+        }
+
+        // TAG states whose token can complete a match
+        final boolean[] seen = new boolean[size];
+        final int[] stack = new int[size];
+        final int[] tags = new int[size];
+        int count = 0;
+        int top = 0;
+        stack[top++] = size - 1;
+        seen[size - 1] = true;
+        while (top > 0) {
+            final int state = stack[--top];
+            for (int i = tagOffsets[state]; i < tagOffsets[state + 1]; i++) {
+                tags[count++] = tagSources[i];
+            }
+            for (int i = epsilonOffsets[state]; i < epsilonOffsets[state + 1]; i++) {
+                if (!seen[epsilonSources[i]]) {
+                    seen[epsilonSources[i]] = true;
+                    stack[top++] = epsilonSources[i];
+                }
+            }
+        }
+        last = Arrays.copyOf(tags, count);
+    }
+
+    int @NotNull [] last() {
+        return last;
+    }
+
+    boolean accepts(int state, int code) {
+        return tags[state].accepts(code);
+    }
+
+    // leftmost-longest, non overlapping, non empty matches of the program in two linear passes, no backtracking:
+    // the tokens are fed backwards once to find the longest match starting at every position, each position costs at
+    // most one visit per state and per edge, then the matches are picked left to right among those candidates
+    static final class Scanner {
+        private final @NotNull Program program;
+        // states from which the tokens already fed lead to MATCH, with the furthest end, furthest first
+        private int @NotNull [] states;
+        private int @NotNull [] ends;
+        private int count = 0;
+        private int @NotNull [] nextStates;
+        private int @NotNull [] nextEnds;
+        private int nextCount = 0;
+        private final int @NotNull [] stack;
+        private final int @NotNull [] stamps;
+        private int generation = 1;
+        private int startEnd = -1;
+
+        // (start, end) of the longest match at each start, in decreasing start order
+        private int @NotNull [] candidates = new int[8];
+        private int candidateCount = 0;
+
+        Scanner(@NotNull Program program) {
+            this.program = program;
+            this.states = new int[program.size];
+            this.ends = new int[program.size];
+            this.nextStates = new int[program.size];
+            this.nextEnds = new int[program.size];
+            this.stack = new int[program.size];
+            this.stamps = new int[program.size];
+        }
+
+        // nothing but the MATCH state is reachable, the scanner only wakes up again on a token that can end a match
+        boolean isIdle() {
+            return count == 0;
+        }
+
+        // feeds the token at the position, positions must come in decreasing order
+        void feed(int position, int code) {
+            generation++;
+            nextCount = 0;
+            startEnd = -1;
+            for (int i = 0; i < count; i++) {
+                sources(states[i], ends[i], code);
+            }
+            // the MATCH state is reachable everywhere with an empty rest, its end is the smallest
+            for (int t : program.last) {
+                if (stamps[t] != generation && program.accepts(t, code)) {
+                    close(t, position + 1);
+                }
+            }
+            final int[] s = states;
+            states = nextStates;
+            nextStates = s;
+            final int[] e = ends;
+            ends = nextEnds;
+            nextEnds = e;
+            count = nextCount;
+
+            if (startEnd != -1) {
+                candidate(position, startEnd);
+            }
+        }
+
+        private void sources(int state, int end, int code) {
+            for (int i = program.tagOffsets[state]; i < program.tagOffsets[state + 1]; i++) {
+                final int t = program.tagSources[i];
+                if (stamps[t] != generation && program.accepts(t, code)) {
+                    close(t, end);
+                }
+            }
+        }
+
+        // the TAG state and every state reaching it without consuming, each state keeps the first and furthest end
+        private void close(int tag, int end) {
+            int top = 0;
+            stamps[tag] = generation;
+            stack[top++] = tag;
+            while (top > 0) {
+                final int state = stack[--top];
+                nextStates[nextCount] = state;
+                nextEnds[nextCount++] = end;
+                if (state == 0) {
+                    startEnd = end; // first visit, so the longest match starting here
+                }
+                for (int i = program.epsilonOffsets[state]; i < program.epsilonOffsets[state + 1]; i++) {
+                    final int source = program.epsilonSources[i];
+                    if (stamps[source] != generation) {
+                        stamps[source] = generation;
+                        stack[top++] = source;
+                    }
+                }
+            }
+        }
+
+        private void candidate(int start, int end) {
+            if (candidateCount + 2 > candidates.length) {
+                candidates = Arrays.copyOf(candidates, candidates.length * 2);
+            }
+            candidates[candidateCount++] = start;
+            candidates[candidateCount++] = end;
+        }
+
+        // the leftmost candidate wins, the next match starts at or after its end
+        void report(@NotNull Pattern.MatchVisitor visitor) {
+            int next = 0;
+            for (int i = candidateCount - 2; i >= 0; i -= 2) {
+                if (candidates[i] >= next) {
+                    visitor.visit(candidates[i], candidates[i + 1]);
+                    next = candidates[i + 1];
+                }
+            }
+        }
+
+        void scan(int @NotNull [] codes, int length, @NotNull Pattern.MatchVisitor visitor) {
+            for (int position = length - 1; position >= 0; position--) {
+                feed(position, codes[position]);
+            }
+            report(visitor);
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("Program{");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(i).append(':');
+            switch (ops[i]) {
+                case TAG -> sb.append(tags[i]).append("->").append(outs[i]);
+                case SPLIT -> sb.append("split->").append(outs[i]).append(',').append(alts[i]);
+                case JUMP -> sb.append("jump->").append(outs[i]);
+                default -> sb.append("match");
+            }
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -7,9 +7,26 @@ import java.util.stream.Stream;
 
 public class Result {
     private final List<CoreLabel> matches;
+    private final int start;
+    private final int end;
 
     public Result(List<CoreLabel> matches) {
+        this(matches, 0, matches.size());
+    }
+
+    // [start, end) range of the match in the consumed sentence
+    public Result(List<CoreLabel> matches, int start, int end) {
         this.matches = matches;
+        this.start = start;
+        this.end = end;
+    }
+
+    public int start() {
+        return start;
+    }
+
+    public int end() {
+        return end;
     }
 
     public Stream<CoreLabel> stream() {
@@ -52,6 +69,8 @@ public class Result {
     public String toString() {
         return "Result{" +
                 "matches=" + matches +
+                ", start=" + start +
+                ", end=" + end +
                 '}';
     }
 }
@@ -0,0 +1,280 @@
+package org.example.wag.world;
+
+import edu.stanford.nlp.ling.CoreLabel;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// binary cache of annotated lines, keyed by a 64-bit hash of the line content
+// file layout: magic, version, annotators, entry count, then [key, length, payload] from least to most recently used
+public class AnnotationCache implements AutoCloseable {
+    private static final int MAGIC = 0x57414743; // WAGC
+    private static final int VERSION = 1;
+    private static final int ENTRY_OVERHEAD = Long.BYTES + Integer.BYTES;
+
+    private final @NotNull Path path;
+    private final @NotNull String annotators;
+    private final long capacity;
+    private final @NotNull LinkedHashMap<Long, byte[]> entries = new LinkedHashMap<>(1024, 0.75f, true);
+    private long size = 0;
+    private boolean dirty = false;
+    private boolean discarded = false; // the file was corrupt and dropped when opening
+
+    private final @NotNull AtomicLong hits = new AtomicLong();
+    private final @NotNull AtomicLong misses = new AtomicLong();
+    private final @NotNull AtomicLong evictions = new AtomicLong();
+
+    private AnnotationCache(@NotNull Path path, @NotNull String annotators, long capacity) {
+        this.path = path;
+        this.annotators = annotators;
+        this.capacity = capacity;
+    }
+
+    public static @NotNull AnnotationCache open(@NotNull Path path, long capacity) throws IOException {
+        return open(path, Annotator.ANNOTATORS, capacity);
+    }
+
+    public static @NotNull AnnotationCache open(@NotNull Path path, @NotNull String annotators, long capacity) throws IOException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid cache capacity: " + capacity);
+        }
+        final AnnotationCache cache = new AnnotationCache(path, annotators, capacity);
+        if (Files.exists(path)) {
+            cache.load();
+        }
+        return cache;
+    }
+
+    // a truncated or corrupt file is discarded and reported by discarded(), a cache problem never stops the annotation
+    private void load() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(annotators)) {
+                // produced by another format or pipeline, start from scratch
+                dirty = true;
+                return;
+            }
+            final long available = Files.size(path);
+            final int count = in.readInt();
+            if (count < 0) {
+                throw new IOException("Invalid entry count: " + count);
+            }
+            for (int i = 0; i < count; i++) {
+                final long key = in.readLong();
+                final int length = in.readInt();
+                if (length < 0 || length > available || length > capacity) {
+                    throw new IOException("Invalid entry length: " + length);
+                }
+                final byte[] payload = new byte[length];
+                in.readFully(payload);
+                insert(key, payload);
+            }
+        } catch (IOException | RuntimeException e) {
+            discarded = true;
+            entries.clear();
+            size = 0;
+            dirty = true;
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ignored) {
+                // rewritten by the next save anyway
+            }
+        }
+    }
+
+    public synchronized void save() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        final Path parent = path.toAbsolutePath().getParent();
+        final Path tmp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(annotators);
+            out.writeInt(entries.size());
+            for (Map.Entry<Long, byte[]> entry : entries.entrySet()) {
+                out.writeLong(entry.getKey());
+                out.writeInt(entry.getValue().length);
+                out.write(entry.getValue());
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        dirty = false;
+    }
+
+    public @Nullable List<CoreLabel> get(@NotNull String line) {
+        final byte[] payload;
+        synchronized (this) {
+            payload = entries.get(hash(line));
+        }
+        if (payload != null) {
+            final List<CoreLabel> labels = decode(line, payload);
+            if (labels != null) {
+                hits.incrementAndGet();
+                return labels;
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(@NotNull String line, @NotNull List<CoreLabel> labels) {
+        final byte[] payload = encode(line, labels);
+        synchronized (this) {
+            insert(hash(line), payload);
+            dirty = true;
+        }
+    }
+
+    private void insert(long key, byte @NotNull [] payload) {
+        final byte[] previous = entries.put(key, payload);
+        if (previous != null) {
+            size -= previous.length + ENTRY_OVERHEAD;
+        }
+        size += payload.length + ENTRY_OVERHEAD;
+
+        final Iterator<byte[]> iterator = entries.values().iterator();
+        while (size > capacity && iterator.hasNext()) {
+            size -= iterator.next().length + ENTRY_OVERHEAD;
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public long evictions() {
+        return evictions.get();
+    }
+
+    public synchronized boolean discarded() {
+        return discarded;
+    }
+
+    public synchronized int entries() {
+        return entries.size();
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    @Override
+    public void close() throws IOException {
+        save();
+    }
+
+    @Override
+    public String toString() {
+        return "AnnotationCache{" +
+                "path=" + path +
+                ", entries=" + entries() +
+                ", size=" + size() +
+                ", capacity=" + capacity +
+                ", hits=" + hits() +
+                ", misses=" + misses() +
+                ", evictions=" + evictions() +
+                ", discarded=" + discarded() +
+                '}';
+    }
+
+    // FNV-1a over the UTF-16 code units
+    public static long hash(@NotNull String line) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < line.length(); i++) {
+            hash ^= line.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static byte @NotNull [] encode(@NotNull String line, @NotNull List<CoreLabel> labels) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + labels.size() * 24);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            // the line is kept to tell hash collisions apart from real hits
+            writeString(out, line);
+            out.writeInt(labels.size());
+            for (CoreLabel label : labels) {
+                writeString(out, label.word());
+                writeString(out, label.tag());
+                writeString(out, label.lemma());
+                out.writeInt(label.index());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static @Nullable List<CoreLabel> decode(@NotNull String line, byte @NotNull [] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            if (!line.equals(readString(in))) {
+                return null;
+            }
+            final int count = in.readInt();
+            final List<CoreLabel> labels = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                final CoreLabel label = new CoreLabel();
+                final String word = readString(in);
+                label.setWord(word);
+                label.setValue(word);
+                label.setOriginalText(word);
+                label.setTag(readString(in));
+                label.setLemma(readString(in));
+                label.setIndex(in.readInt());
+                labels.add(label);
+            }
+            return labels;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeString(@NotNull DataOutputStream out, @Nullable String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static @Nullable String readString(@NotNull DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
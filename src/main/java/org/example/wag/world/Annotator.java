@@ -0,0 +1,133 @@
+package org.example.wag.world;
+
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class Annotator implements AutoCloseable {
+    public static final @NotNull String ANNOTATORS = "tokenize,pos,lemma";
+
+    private volatile StanfordCoreNLP pipeline = null;
+    private final AnnotationCache cache;
+    private final @NotNull ExecutorService executor;
+    private final int workers;
+    private final int window;
+
+    public Annotator() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public Annotator(int workers) {
+        this(workers, null);
+    }
+
+    // the annotator takes ownership of the cache, it is saved when the annotator is closed
+    public Annotator(int workers, @Nullable AnnotationCache cache) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Invalid worker count: " + workers);
+        }
+        this.cache = cache;
+        this.workers = workers;
+        // keep every worker busy while the world builder drains the head of the queue,
+        // without letting annotated lines pile up faster than they are consumed
+        this.window = workers * 4;
+        this.executor = Executors.newFixedThreadPool(workers, new WorkerFactory());
+    }
+
+    public int workers() {
+        return workers;
+    }
+
+    // annotate lines concurrently, the consumer is called on the caller thread in input order
+    public void annotate(@NotNull Stream<String> lines, @NotNull Consumer<List<CoreLabel>> consumer) {
+        final Deque<CompletableFuture<List<CoreLabel>>> pending = new ArrayDeque<>(window);
+        final Iterator<String> iterator = lines.iterator();
+
+        while (iterator.hasNext()) {
+            final String line = iterator.next();
+            pending.addLast(CompletableFuture.supplyAsync(() -> annotate(line), executor));
+            if (pending.size() >= window) {
+                consumer.accept(pending.removeFirst().join());
+            }
+        }
+        while (!pending.isEmpty()) {
+            consumer.accept(pending.removeFirst().join());
+        }
+    }
+
+    public @NotNull List<CoreLabel> annotate(@NotNull String line) {
+        if (cache == null) {
+            return pipeline().processToCoreDocument(line).tokens();
+        }
+        List<CoreLabel> labels = cache.get(line);
+        if (labels == null) {
+            labels = pipeline().processToCoreDocument(line).tokens();
+            cache.put(line, labels);
+        }
+        return labels;
+    }
+
+    public @Nullable AnnotationCache cache() {
+        return cache;
+    }
+
+    // loading the models is expensive, a fully cached run never pays for it
+    private @NotNull StanfordCoreNLP pipeline() {
+        StanfordCoreNLP local = pipeline;
+        if (local == null) {
+            synchronized (this) {
+                local = pipeline;
+                if (local == null) {
+                    Properties props = new Properties();
+                    props.setProperty("annotators", ANNOTATORS);
+                    local = new StanfordCoreNLP(props);
+                    pipeline = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    @Override
+    public void close() throws IOException {
+        executor.shutdownNow();
+        if (cache != null) {
+            cache.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Annotator{" +
+                "workers=" + workers +
+                ", window=" + window +
+                ", cache=" + cache +
+                '}';
+    }
+
+    private static class WorkerFactory implements ThreadFactory {
+        private final @NotNull AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(@NotNull Runnable runnable) {
+            Thread thread = new Thread(runnable, "wag-annotator-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -1,13 +1,12 @@
 package org.example.wag.world;
 
-import edu.stanford.nlp.ling.CoreLabel;
 import org.example.wag.Attribute;
 import org.example.wag.Label;
+import org.example.wag.TokenBuffer;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class AttributeWorld implements World {
     private final @NotNull GramWorld world;
@@ -19,9 +18,9 @@ public class AttributeWorld implements World {
     }
 
     @Override
-    public void process(@NotNull List<CoreLabel> labels, int cursor) {
+    public void process(@NotNull TokenBuffer tokens, int cursor) {
         int subcursor = cursor;
-        int sindex = labels.get(cursor).index();
+        int sindex = tokens.index(cursor);
         boolean resetAttribute = false;
         boolean negate = false;
 
@@ -29,30 +28,27 @@ public class AttributeWorld implements World {
         String gram;
         List<String> amplifiers = new ArrayList<>();
         List<String> description = new ArrayList<>();
-        CoreLabel label;
 
-        for (; subcursor < labels.size(); subcursor++) {
-            label = labels.get(subcursor);
-
-            System.out.println(label + " " + label.tag());
-            if ((subcursor != cursor) && (label.index() <= sindex)) {
+        for (; subcursor < tokens.size(); subcursor++) {
+            System.out.println(tokens.word(subcursor) + " " + tokens.tag(subcursor));
+            if ((subcursor != cursor) && (tokens.index(subcursor) <= sindex)) {
                 break;
             }
 
-            if (Label.isNoun(label)) {
+            if (Label.isNoun(tokens, subcursor)) {
                 world.reset();
-                world.process(labels, subcursor);
+                world.process(tokens, subcursor);
 
-                gram = world.gram.stream().map(CoreLabel::lemma).collect(Collectors.joining(" "));
+                gram = world.lemmas();
                 if (attribute == null || resetAttribute) {
                     attribute = gram;
                     resetAttribute = false;
                 } else {
                     description.add(gram);
                 }
-                subcursor += world.gram.size() - 1;
-            } else if (Label.isPrepositionOrSubordinatingConjunction(label)) {
-                String prep = label.lemma();
+                subcursor += world.size() - 1;
+            } else if (Label.isPrepositionOrSubordinatingConjunction(tokens, subcursor)) {
+                String prep = tokens.lemma(subcursor);
                 if (prep.equalsIgnoreCase("of")) {
                     resetAttribute = true;
                     amplifiers.add(attribute);
@@ -68,8 +64,8 @@ public class AttributeWorld implements World {
                     // eg. a lof of experience in video games
                     // 'video games' bring information about the 'experience' attribute
                 }
-            } else if (Label.isConjunction(label)) {
-                String cc = label.lemma();
+            } else if (Label.isConjunction(tokens, subcursor)) {
+                String cc = tokens.lemma(subcursor);
                 if (cc.equalsIgnoreCase("and")) {
                     if (attribute == null) {
                         // TODO: find what to do here, with a syntax correct input, this should never happen
@@ -92,9 +88,9 @@ public class AttributeWorld implements World {
                     //  eg. a lof of experience and knowledge in video games
                     //  'video games' bring information to 'experience' and 'knowledge', so they must be connected in the graph space
                 }
-            } else if (Label.isAdverb(label)) {
-                negate = label.lemma().equalsIgnoreCase("not");
-            } else if (Label.isAdjective(label)) {
+            } else if (Label.isAdverb(tokens, subcursor)) {
+                negate = tokens.lemma(subcursor).equalsIgnoreCase("not");
+            } else if (Label.isAdjective(tokens, subcursor)) {
                 // TODO: take adjective into account
             }
         }
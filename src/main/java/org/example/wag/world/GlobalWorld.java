@@ -1,9 +1,8 @@
 package org.example.wag.world;
 
 import edu.stanford.nlp.ling.CoreLabel;
-import edu.stanford.nlp.pipeline.CoreDocument;
-import edu.stanford.nlp.pipeline.StanfordCoreNLP;
 import org.example.wag.*;
+import org.example.wag.export.Exporter;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
@@ -11,34 +10,48 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Properties;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class GlobalWorld implements World {
+    private final @NotNull TermDictionary terms = new TermDictionary();
     private final @NotNull List<Subject> subjects = new ArrayList<>();
+    private final @NotNull SubjectIndex subjectIndex = new SubjectIndex(terms);
     private final @NotNull List<Relationship> relationships = new ArrayList<>();
+    private final @NotNull RelationshipStore relationshipStore = new RelationshipStore(terms);
     private final @NotNull List<Group> groups = new ArrayList<>();
-    private final @NotNull VocabSpace vocab = new VocabSpace();
-    private final @NotNull VectorSpace vspace = new VectorSpace(0);
-    private final @NotNull GraphSpace gspace = new GraphSpace();
-    private final @NotNull AdjectiveIndex index = new AdjectiveIndex();
-
-    private void init(@NotNull List<CoreLabel> labels) {
-        AtomicInteger d = new AtomicInteger();
-        vocab.resize((int) labels.stream().filter(Label::isCommonNoun).count());
-        labels.stream().filter(Label::isCommonNoun).forEach(label -> {
-            String name = label.lemma();
+    private final @NotNull VocabSpace vocab = new VocabSpace(terms);
+    private final @NotNull VectorSpace vspace = new VectorSpace(terms, 0);
+    private final @NotNull GraphSpace gspace;
+    private final @NotNull AdjectiveIndex index = new AdjectiveIndex(terms);
+
+    public GlobalWorld() {
+        this(GraphSpace.Mode.OVERWRITE);
+    }
+
+    // ACCUMULATE keeps the evidence of every sentence on the links instead of the last statement only
+    public GlobalWorld(@NotNull GraphSpace.Mode mode) {
+        this.gspace = new GraphSpace(terms, mode);
+    }
+
+    // pre-seed the vocabulary with the common nouns of the tokens, each one gets its own dimension
+    private boolean seed(@NotNull TokenBuffer tokens) {
+        final int start = vspace.dimensions();
+        int d = start;
+        for (int i = 0; i < tokens.size(); i++) {
+            if (!Label.isCommonNoun(tokens, i)) {
+                continue;
+            }
+            String name = tokens.lemma(i);
             if (!contain(name)) {
-                d.addAndGet(1);
+                d++;
                 vocab.addWord(name);
-                //hashes[d.get() - 1] = name.hashCode();
-                this.vspace.set(name, VectorSpace.Vector.zeros(d.get()).set(d.get() - 1, 1).apply());
+                this.vspace.set(name, VectorSpace.Vector.sparse(d).set(d - 1, 1));
                 this.gspace.emplace(name);
             }
-        });
-
-        this.vspace.resize(d.get()).equalize();
+        }
+        this.vspace.resize(d);
+        return d != start;
     }
 
     public boolean contain(@NotNull String word) {
@@ -68,25 +81,26 @@ public class GlobalWorld implements World {
             vspace.resize(d);
             vspace.equalize();
 
-            //vspace.add(VectorSpace.Vector.zeros(d).set(d - 1, 1).apply());
+            //vspace.add(VectorSpace.Vector.sparse(d).set(d - 1, 1));
             //gspace.emplace();
         }
     }
 
     @Override
-    public void process(@NotNull List<CoreLabel> labels) {
-        for (int cursor = 0; cursor < labels.size(); cursor++) {
-            CoreLabel label = labels.get(cursor);
-            if (Label.isProperNoun(label)) {
-                SubjectWorld w = new SubjectWorld(subjects, vocab, vspace, gspace, index);
-                w.process(labels, cursor);
+    public void process(@NotNull TokenBuffer tokens) {
+        for (int cursor = 0; cursor < tokens.size(); cursor++) {
+            if (Label.isProperNoun(tokens, cursor)) {
+                SubjectWorld w = new SubjectWorld(subjects, subjectIndex, vocab, vspace, gspace, index);
+                w.process(tokens, cursor);
                 cursor = w.cursor;
-            } else if (Label.isCommonNoun(label)) {
+            } else if (Label.isCommonNoun(tokens, cursor)) {
                 NounWorld w = new NounWorld(vocab, vspace, gspace, index);
-                w.process(labels, cursor);
+                w.process(tokens, cursor);
                 cursor = w.cursor;
             }
         }
+        // relationships are read once the subjects of the sentence are known
+        new RelationshipWorld(subjects, subjectIndex, vocab, relationships, relationshipStore, gspace.getMode()).process(tokens, 0);
     }
 
     @Override
@@ -113,22 +127,136 @@ public class GlobalWorld implements World {
         return subjects.stream().map(s -> s.prettyString(vocab)).collect(Collectors.joining("\n"));
     }
 
+    // subjects, vectors then graph, separated by "---" lines, only the PRETTY format can hold the three sections in one stream
+    public void export(@NotNull Exporter exporter) throws IOException {
+        if (exporter.getFormat() != Exporter.Format.PRETTY) {
+            throw new IllegalArgumentException("Single stream export needs the PRETTY format: " + exporter.getFormat());
+        }
+        exporter.subjects(subjects);
+        exporter.write("---\n");
+        exporter.vectors(vspace);
+        exporter.write("---\n");
+        exporter.graph(gspace);
+        exporter.flush();
+    }
+
+    // one sink per section for the structured formats, GRAPHML has no vector section so vectors may be null
+    public void export(@NotNull Exporter subjects, Exporter vectors, @NotNull Exporter graph) throws IOException {
+        subjects.subjects(this.subjects);
+        subjects.flush();
+        if (vectors != null) {
+            vectors.vectors(vspace);
+            vectors.flush();
+        }
+        graph.graph(gspace);
+        graph.flush();
+    }
+
+    // seed and process a single sentence, the world grows incrementally as sentences arrive
+    public void ingest(@NotNull List<CoreLabel> labels) {
+        ingest(TokenBuffer.of(labels, terms));
+    }
+
+    public void ingest(@NotNull TokenBuffer tokens) {
+        if (seed(tokens)) {
+            vspace.equalize();
+        }
+        process(tokens);
+    }
+
+    public @NotNull TermDictionary getTerms() {
+        return terms;
+    }
+
+    public @NotNull List<Subject> getSubjects() {
+        return subjects;
+    }
+
+    public @NotNull List<Relationship> getRelationships() {
+        return relationships;
+    }
+
+    public @NotNull RelationshipStore getRelationshipStore() {
+        return relationshipStore;
+    }
+
+    public @NotNull VectorSpace getVectorSpace() {
+        return vspace;
+    }
+
+    public @NotNull GraphSpace getGraphSpace() {
+        return gspace;
+    }
+
+    public @NotNull SubjectIndex getSubjectIndex() {
+        return subjectIndex;
+    }
+
     public static GlobalWorld generate(String path) throws IOException {
-        Properties props = new Properties();
-        props.setProperty("annotators", "tokenize,pos,lemma");
-        StanfordCoreNLP pipeline = new StanfordCoreNLP(props);
-
-        List<List<CoreLabel>> labels = Files.lines(Path.of(path))
-                .map(pipeline::processToCoreDocument)
-                .map(CoreDocument::tokens)
-                .toList();
-
-        final GlobalWorld w = new GlobalWorld();
-        w.init(labels.stream().reduce(new ArrayList<>(), (a, b) -> {
-            a.addAll(b);
-            return a;
-        }));
-        labels.forEach(w::process);
+        return generate(path, GraphSpace.Mode.OVERWRITE);
+    }
+
+    public static GlobalWorld generate(String path, @NotNull GraphSpace.Mode mode) throws IOException {
+        return generate(path, Runtime.getRuntime().availableProcessors(), mode);
+    }
+
+    public static GlobalWorld generate(String path, int workers) throws IOException {
+        return generate(path, workers, GraphSpace.Mode.OVERWRITE);
+    }
+
+    public static GlobalWorld generate(String path, int workers, @NotNull GraphSpace.Mode mode) throws IOException {
+        try (Annotator annotator = new Annotator(workers)) {
+            return generate(path, annotator, mode);
+        }
+    }
+
+    public static GlobalWorld generate(String path, @NotNull Annotator annotator) throws IOException {
+        return generate(path, annotator, GraphSpace.Mode.OVERWRITE);
+    }
+
+    public static GlobalWorld generate(String path, @NotNull Annotator annotator, @NotNull GraphSpace.Mode mode) throws IOException {
+        final GlobalWorld w = new GlobalWorld(mode);
+        final List<TokenBuffer> sentences = new ArrayList<>();
+
+        try (Stream<String> lines = Files.lines(Path.of(path))) {
+            annotator.annotate(lines, labels -> sentences.add(TokenBuffer.of(labels, w.terms)));
+        }
+
+        sentences.forEach(w::seed);
+        w.vspace.equalize();
+        sentences.forEach(w::process);
+        return w;
+    }
+
+    // single pass ingestion, only the annotation window is kept in memory besides the world itself
+    public static GlobalWorld stream(String path) throws IOException {
+        return stream(path, GraphSpace.Mode.OVERWRITE);
+    }
+
+    public static GlobalWorld stream(String path, @NotNull GraphSpace.Mode mode) throws IOException {
+        return stream(path, Runtime.getRuntime().availableProcessors(), mode);
+    }
+
+    public static GlobalWorld stream(String path, int workers) throws IOException {
+        return stream(path, workers, GraphSpace.Mode.OVERWRITE);
+    }
+
+    public static GlobalWorld stream(String path, int workers, @NotNull GraphSpace.Mode mode) throws IOException {
+        try (Annotator annotator = new Annotator(workers)) {
+            return stream(path, annotator, mode);
+        }
+    }
+
+    public static GlobalWorld stream(String path, @NotNull Annotator annotator) throws IOException {
+        return stream(path, annotator, GraphSpace.Mode.OVERWRITE);
+    }
+
+    public static GlobalWorld stream(String path, @NotNull Annotator annotator, @NotNull GraphSpace.Mode mode) throws IOException {
+        final GlobalWorld w = new GlobalWorld(mode);
+
+        try (Stream<String> lines = Files.lines(Path.of(path))) {
+            annotator.annotate(lines, w::ingest);
+        }
         return w;
     }
 }
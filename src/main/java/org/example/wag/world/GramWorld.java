@@ -1,14 +1,14 @@
 package org.example.wag.world;
 
-import edu.stanford.nlp.ling.CoreLabel;
 import org.example.wag.Label;
+import org.example.wag.TokenBuffer;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class GramWorld implements World {
-    public List<CoreLabel> gram = new ArrayList<>();
+    // the gram is the token range [start, end) of the last processed buffer
+    public int start = 0;
+    public int end = 0;
+    private TokenBuffer tokens = null;
     boolean useProper = false;
 
     public GramWorld(boolean useProper) {
@@ -16,44 +16,56 @@ public class GramWorld implements World {
     }
 
     @Override
-    public void process(@NotNull List<CoreLabel> labels) {}
+    public void process(@NotNull TokenBuffer tokens) {}
 
     @Override
-    public void process(@NotNull List<CoreLabel> labels, int cursor) {
+    public void process(@NotNull TokenBuffer tokens, int cursor) {
         int subcursor = cursor;
-        int sindex = labels.get(cursor).index();
+        int sindex = tokens.index(cursor);
 
-        //System.out.println("GRAM: " + labels.get(cursor) + " " + sindex);
+        //System.out.println("GRAM: " + tokens.word(cursor) + " " + sindex);
 
         if (useProper) {
-            for (; subcursor < labels.size(); subcursor++) {
-                CoreLabel label = labels.get(subcursor);
-
-                if ((subcursor != cursor) && (label.index() <= sindex)) {
+            for (; subcursor < tokens.size(); subcursor++) {
+                if ((subcursor != cursor) && (tokens.index(subcursor) <= sindex)) {
                     break;
                 }
 
-                if (!Label.isProperNoun(label)) {
+                if (!Label.isProperNoun(tokens, subcursor)) {
                     break;
                 }
-
-                gram.add(label);
             }
         } else {
-            for (; subcursor < labels.size(); subcursor++) {
-                CoreLabel label = labels.get(subcursor);
-
-                if ((subcursor != cursor) && (label.index() <= sindex)) {
+            for (; subcursor < tokens.size(); subcursor++) {
+                if ((subcursor != cursor) && (tokens.index(subcursor) <= sindex)) {
                     break;
                 }
 
-                if (!Label.isNoun(label)) {
+                if (!Label.isNoun(tokens, subcursor)) {
                     break;
                 }
-
-                gram.add(label);
             }
         }
+
+        this.tokens = tokens;
+        this.start = cursor;
+        this.end = subcursor;
+    }
+
+    public int size() {
+        return end - start;
+    }
+
+    public @NotNull String word(int i) {
+        return tokens.word(start + i);
+    }
+
+    public @NotNull String words() {
+        return tokens.words(start, end);
+    }
+
+    public @NotNull String lemmas() {
+        return tokens.lemmas(start, end);
     }
 
     public GramWorld useProper(boolean useProper) {
@@ -63,6 +75,7 @@ public class GramWorld implements World {
 
     @Override
     public void reset() {
-        gram.clear();
+        start = 0;
+        end = 0;
     }
 }
@@ -1,6 +1,5 @@
 package org.example.wag.world;
 
-import edu.stanford.nlp.ling.CoreLabel;
 import org.example.wag.*;
 import org.jetbrains.annotations.NotNull;
 
@@ -36,7 +35,7 @@ public class NounWorld implements World {
     public void addWordToVectorSpace(@NotNull String word) {
         if (!this.vspace.contains(word)) {
             final int d = this.vspace.dimensions();
-            this.vspace.set(word, VectorSpace.Vector.zeros(d).set(d - 1, 1).apply());
+            this.vspace.set(word, VectorSpace.Vector.sparse(d).set(d - 1, 1));
             this.vspace.equalize();
         }
     }
@@ -54,12 +53,12 @@ public class NounWorld implements World {
     }
 
     public void bringCloser(@NotNull String word1, @NotNull String word2, float factor) {
-        VectorSpace.Vector vec1 = VectorSpace.Vector.vector(vspace.get(word1));
-        VectorSpace.Vector vec2 = VectorSpace.Vector.vector(vspace.get(word2));
+        VectorSpace.Vector vec1 = vspace.vector(word1);
+        VectorSpace.Vector vec2 = vspace.vector(word2);
         vec1.fadd(vec2, factor);
         vec2.fadd(vec1, factor);
-        vspace.set(word1, vec1.unit().apply());
-        vspace.set(word2, vec2.unit().apply());
+        vspace.set(word1, vec1.unit());
+        vspace.set(word2, vec2.unit());
     }
 
     public double[] getVector(@NotNull String word) {
@@ -71,35 +70,33 @@ public class NounWorld implements World {
     }
 
     @Override
-    public void process(@NotNull List<CoreLabel> labels, int cursor) {
+    public void process(@NotNull TokenBuffer tokens, int cursor) {
         int subcursor = cursor;
-        final int sindex = labels.get(cursor).index() + 1;
+        final int sindex = tokens.index(cursor) + 1;
         boolean negate = false;
         boolean hasNoun = false;
 
-        //System.out.println("NOUN: " + labels.get(cursor) + " " + sindex);
+        //System.out.println("NOUN: " + tokens.word(cursor) + " " + sindex);
 
         final GramWorld world = new GramWorld(false);
         final List<Agglomerate> agglomerates = new ArrayList<>();
-        CoreLabel label;
         String main;
         String last = null;
 
-        world.process(labels, subcursor);
+        world.process(tokens, subcursor);
 
-        main = world.gram.stream().map(CoreLabel::lemma).collect(Collectors.joining(" "));
+        main = world.lemmas();
         addWordToAll(main);
 
-        subcursor += world.gram.size();
+        subcursor += world.size();
 
-        if (subcursor >= labels.size()) {
+        if (subcursor >= tokens.size()) {
             this.cursor = subcursor;
             return;
         }
 
-        label = labels.get(subcursor);
-        if (Label.isVerb(label)) {
-            if (label.lemma().equalsIgnoreCase("be")) {
+        if (Label.isVerb(tokens, subcursor)) {
+            if (tokens.lemma(subcursor).equalsIgnoreCase("be")) {
                 subcursor++;
             }
         } else {
@@ -108,24 +105,22 @@ public class NounWorld implements World {
         }
 
         // subprocess
-        for (; subcursor < labels.size(); subcursor++) {
-            label = labels.get(subcursor);
-
-            //System.out.println("in loop: " + label + " " + label.index() + " " + sindex);
-            if ((subcursor != cursor) && (label.index() <= sindex)) {
+        for (; subcursor < tokens.size(); subcursor++) {
+            //System.out.println("in loop: " + tokens.word(subcursor) + " " + tokens.index(subcursor) + " " + sindex);
+            if ((subcursor != cursor) && (tokens.index(subcursor) <= sindex)) {
                 //System.out.println("BREAK");
                 break;
             }
 
-            if (Label.isNoun(label)) {
+            if (Label.isNoun(tokens, subcursor)) {
                 world.reset();
-                world.process(labels, subcursor);
+                world.process(tokens, subcursor);
 
-                final String gram = world.gram.stream().map(CoreLabel::lemma).collect(Collectors.joining(" "));
+                final String gram = world.lemmas();
                 addWordToAll(gram);
                 last = gram;
 
-                subcursor += world.gram.size() - 1;
+                subcursor += world.size() - 1;
 
                 gspace.setLink(main, gram, negate ? -1 : 1);
 
@@ -134,14 +129,14 @@ public class NounWorld implements World {
                 boolean negateWord = agglomerates.stream().anyMatch(a -> !a.negate);
                 agglomerates.forEach(a -> a.execute(this, gspace, gram, !negateWord, false));
                 agglomerates.clear();
-            } else if (Label.isAdjective(label)) {
-                addWordToVocab(label.word());
-                addWordToVocab(label.lemma());
-                addWordToGraphSpace(label.word());
-                addWordToGraphSpace(label.lemma());
-
-                index.add(label);
-                Agglomerate agglomerate = agglomerateProcess(labels, subcursor, sindex + 1, gspace.getIndex(main), negate);
+            } else if (Label.isAdjective(tokens, subcursor)) {
+                addWordToVocab(tokens.word(subcursor));
+                addWordToVocab(tokens.lemma(subcursor));
+                addWordToGraphSpace(tokens.word(subcursor));
+                addWordToGraphSpace(tokens.lemma(subcursor));
+
+                index.add(tokens, subcursor);
+                Agglomerate agglomerate = agglomerateProcess(tokens, subcursor, sindex + 1, gspace.getIndex(main), negate);
                 if (hasNoun) {
                     agglomerates.add(agglomerate);
                 } else if (last != null) {
@@ -150,10 +145,10 @@ public class NounWorld implements World {
                     agglomerate.execute(this, gspace);
                 }
                 subcursor = agglomerate.cursor;
-            } else if (Label.isAdverb(label)) {
-                negate = label.lemma().equalsIgnoreCase("not");
-            } else if (Label.isConjunction(label)) {
-                final String cc = label.lemma();
+            } else if (Label.isAdverb(tokens, subcursor)) {
+                negate = tokens.lemma(subcursor).equalsIgnoreCase("not");
+            } else if (Label.isConjunction(tokens, subcursor)) {
+                final String cc = tokens.lemma(subcursor);
                 if (cc.equalsIgnoreCase("but")) {
                     // TODO
                     //  introduce sub-block by reset the state
@@ -176,12 +171,12 @@ public class NounWorld implements World {
                     // TODO: no particular state change
                     //  introduce sub-block
                 }
-            } else if (Label.isDeterminer(label)) {
+            } else if (Label.isDeterminer(tokens, subcursor)) {
                 // TODO: implement this
                 //  there is a word in the sub-block
                 hasNoun = true;
-            } else if (Label.isPunctuation(label)) {
-                if (label.lemma().equalsIgnoreCase(",")) {
+            } else if (Label.isPunctuation(tokens, subcursor)) {
+                if (tokens.lemma(subcursor).equalsIgnoreCase(",")) {
                     // reset state
                     negate = false;
                 }
@@ -339,7 +334,7 @@ public class NounWorld implements World {
     // Consequences of multiple adjective of the same category
     // eg. apple is red or green
     // 'red' and 'green' are both adjectives of the same category 'color'
-    private Agglomerate agglomerateProcess(@NotNull List<CoreLabel> labels, final int cursor, final int sindex, final int mainIndex, boolean negate) {
+    private Agglomerate agglomerateProcess(@NotNull TokenBuffer tokens, final int cursor, final int sindex, final int mainIndex, boolean negate) {
         boolean adjective = true;
         boolean set = false;
         boolean isIntricate = false;
@@ -347,34 +342,31 @@ public class NounWorld implements World {
         int subcursor = cursor;
 
         final @NotNull List<String> accum = new ArrayList<>();
-        CoreLabel label;
-
-        for (; subcursor < labels.size(); subcursor++) {
-            label = labels.get(subcursor);
 
-            if ((subcursor != cursor) && (label.index() <= sindex)) {
+        for (; subcursor < tokens.size(); subcursor++) {
+            if ((subcursor != cursor) && (tokens.index(subcursor) <= sindex)) {
                 break;
             }
 
-            if (Label.isAdjective(label)) {
+            if (Label.isAdjective(tokens, subcursor)) {
                 if (!adjective) { // expected a conjunction
                     break;
                 }
                 adjective = false;
 
-                accum.add(label.word());
+                accum.add(tokens.word(subcursor));
 
-                addWordToVocab(label.word());
-                addWordToVocab(label.lemma());
-                addWordToGraphSpace(label.word());
-                addWordToGraphSpace(label.lemma());
+                addWordToVocab(tokens.word(subcursor));
+                addWordToVocab(tokens.lemma(subcursor));
+                addWordToGraphSpace(tokens.word(subcursor));
+                addWordToGraphSpace(tokens.lemma(subcursor));
 
-                index.add(label);
-            } else if (Label.isConjunction(label)) {
+                index.add(tokens, subcursor);
+            } else if (Label.isConjunction(tokens, subcursor)) {
                 if (adjective) { // expected an adjective
                     break;
                 }
-                final String cc = label.lemma();
+                final String cc = tokens.lemma(subcursor);
                 if (cc.equalsIgnoreCase("and")) {
                     isIntricate = true;
                 } else if (cc.equalsIgnoreCase("or")) {
@@ -384,18 +376,18 @@ public class NounWorld implements World {
                 }
                 set = true;
                 adjective = true;
-            } else if (Label.isPunctuation(label)) {
-                if (label.lemma().equalsIgnoreCase(",")) {
+            } else if (Label.isPunctuation(tokens, subcursor)) {
+                if (tokens.lemma(subcursor).equalsIgnoreCase(",")) {
                     if (set) {
                         break;
                     }
                     adjective = true; // reset state
                 }
-            } else if (Label.isAdverb(label)) {
+            } else if (Label.isAdverb(tokens, subcursor)) {
                 if (set) {
                     break;
                 }
-                if (!label.lemma().equalsIgnoreCase("not")) {
+                if (!tokens.lemma(subcursor).equalsIgnoreCase("not")) {
                     break;
                 }
                 negate = true;
@@ -442,7 +434,7 @@ public class NounWorld implements World {
         }
 
         public SubNounWorld(boolean @NotNull [] negates, @NotNull GramWorld world, @NotNull AdjectiveIndex index) {
-            this.vocab = new VocabSpace();
+            this.vocab = new VocabSpace(new TermDictionary());
             this.world = world;
             this.index = index;
             stackes.add(new ArrayList<>());
@@ -450,28 +442,25 @@ public class NounWorld implements World {
         }
 
         @Override
-        public void process(@NotNull List<CoreLabel> labels, int cursor) {
+        public void process(@NotNull TokenBuffer tokens, int cursor) {
             int subcursor = cursor;
-            int sindex = labels.get(cursor).index();
+            int sindex = tokens.index(cursor);
             boolean negate = false;
             int subtract = vocab.size();
 
             SubNounWorld subworld;
             String lgram = null;
-            CoreLabel label;
-
-            for (; subcursor < labels.size(); subcursor++) {
-                label = labels.get(subcursor);
 
-                if ((subcursor != cursor) && (label.index() <= sindex)) {
+            for (; subcursor < tokens.size(); subcursor++) {
+                if ((subcursor != cursor) && (tokens.index(subcursor) <= sindex)) {
                     break;
                 }
 
-                if (Label.isNoun(label)) {
+                if (Label.isNoun(tokens, subcursor)) {
                     world.reset();
-                    world.process(labels, subcursor);
+                    world.process(tokens, subcursor);
 
-                    lgram = world.gram.stream().map(CoreLabel::lemma).collect(Collectors.joining(" "));
+                    lgram = world.lemmas();
                     if (this.gram == null) {
                         this.gram = lgram;
                     }
@@ -486,26 +475,26 @@ public class NounWorld implements World {
                         negates[gramIndex] = negate;
                     }
                     stackes.getLast().add(lgram);
-                    subcursor += world.gram.size() - 1;
-                } else if (Label.isAdverb(label)) {
-                    negate = label.lemma().equalsIgnoreCase("not");
-                } else if (Label.isAdjective(label)) {
-                    index.add(label);
-                    final int labelIndex = vocab.getIndexOf(label.word());
+                    subcursor += world.size() - 1;
+                } else if (Label.isAdverb(tokens, subcursor)) {
+                    negate = tokens.lemma(subcursor).equalsIgnoreCase("not");
+                } else if (Label.isAdjective(tokens, subcursor)) {
+                    index.add(tokens, subcursor);
+                    final int labelIndex = vocab.getIndexOf(tokens.word(subcursor));
                     if (labelIndex == -1) {
-                        vocab.addWord(label.word());
+                        vocab.addWord(tokens.word(subcursor));
 
                         negates = Arrays.copyOf(negates, negates.length + 1);
                         negates[negates.length - 1] = negate;
                     } else {
                         negates[labelIndex - subtract] = negate;
                     }
-                    stackes.getLast().add(label.word());
-                } else if (Label.isConjunction(label)) {
-                    if (label.lemma().equalsIgnoreCase("but")) {
+                    stackes.getLast().add(tokens.word(subcursor));
+                } else if (Label.isConjunction(tokens, subcursor)) {
+                    if (tokens.lemma(subcursor).equalsIgnoreCase("but")) {
                         // subworld because another statement is being made, could use a stack of int to store the vocab size to avoid stack overflow
                         subworld = new SubNounWorld(negates, vocab, world, index);
-                        subworld.process(labels, subcursor + 1);
+                        subworld.process(tokens, subcursor + 1);
 
                         subcursor = subworld.cursor - 1;
                         negates = subworld.negates;
@@ -517,22 +506,22 @@ public class NounWorld implements World {
                         }
 
                         stackes.addAll(subworld.stackes);
-                    } else if (label.lemma().equalsIgnoreCase("and")) {
+                    } else if (tokens.lemma(subcursor).equalsIgnoreCase("and")) {
                         // reset state
                         negate = false;
                         stackes.add(new ArrayList<>());
-                    } else if (label.lemma().equalsIgnoreCase("nor")) {
+                    } else if (tokens.lemma(subcursor).equalsIgnoreCase("nor")) {
                         negate = true;
                         for (int i = subtract; i < negates.length; i++) {
                             negates[i] = true;
                         }
                         stackes.add(new ArrayList<>());
-                    } else if (label.lemma().equalsIgnoreCase("neither")) {
+                    } else if (tokens.lemma(subcursor).equalsIgnoreCase("neither")) {
                         negate = true;
                         //stackes.add(new ArrayList<>());
                     }
-                } else if (Label.isPrepositionOrSubordinatingConjunction(label)) {
-                    if (label.lemma().equalsIgnoreCase("with")) {
+                } else if (Label.isPrepositionOrSubordinatingConjunction(tokens, subcursor)) {
+                    if (tokens.lemma(subcursor).equalsIgnoreCase("with")) {
                         break; // delegate work to upper world
                     }
                 }
@@ -0,0 +1,170 @@
+package org.example.wag.world;
+
+import org.example.wag.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Comparator;
+import java.util.List;
+
+// "X is Y's friend", "X is the mentor of Y" and "X and Y are rivals", the subjects are resolved through the subject index
+public class RelationshipWorld implements World {
+    public int cursor = 0;
+    private final @NotNull List<Subject> subjects;
+    private final @NotNull SubjectIndex subjectIndex;
+    private final @NotNull VocabSpace vocab;
+    private final @NotNull List<Relationship> relationships;
+    private final @NotNull RelationshipStore store;
+    private final @NotNull GraphSpace.Mode mode; // of the graphs of the subjects this world creates
+
+    public RelationshipWorld(@NotNull List<Subject> subjects, @NotNull SubjectIndex subjectIndex, @NotNull VocabSpace vocab, @NotNull List<Relationship> relationships, @NotNull RelationshipStore store) {
+        this(subjects, subjectIndex, vocab, relationships, store, GraphSpace.Mode.OVERWRITE);
+    }
+
+    public RelationshipWorld(@NotNull List<Subject> subjects, @NotNull SubjectIndex subjectIndex, @NotNull VocabSpace vocab, @NotNull List<Relationship> relationships, @NotNull RelationshipStore store, @NotNull GraphSpace.Mode mode) {
+        this.subjects = subjects;
+        this.subjectIndex = subjectIndex;
+        this.vocab = vocab;
+        this.relationships = relationships;
+        this.store = store;
+        this.mode = mode;
+    }
+
+    @Override
+    public void process(@NotNull TokenBuffer tokens, int cursor) {
+        int subcursor = cursor;
+        while (subcursor < tokens.size()) {
+            if (Label.isProperNoun(tokens, subcursor)) {
+                subcursor = statement(tokens, subcursor);
+            } else {
+                subcursor++;
+            }
+        }
+        this.cursor = subcursor;
+    }
+
+    // position after the statement starting with the name at start, or after the name when there is none
+    private int statement(@NotNull TokenBuffer tokens, int start) {
+        final int end = name(tokens, start);
+        int subcursor = end;
+
+        if (at(tokens, subcursor) && Label.isConjunction(tokens, subcursor) && at(tokens, subcursor + 1) && Label.isProperNoun(tokens, subcursor + 1)) {
+            // X and Y are friends
+            final int other = subcursor + 1;
+            final int otherEnd = name(tokens, other);
+            subcursor = copula(tokens, otherEnd);
+            if (subcursor == -1) {
+                return otherEnd;
+            }
+            subcursor = skipModifiers(tokens, subcursor);
+            if (!isRelationship(tokens, subcursor)) {
+                return otherEnd;
+            }
+            final Subject first = resolve(tokens, start, end);
+            final Subject second = resolve(tokens, other, otherEnd);
+            add(second, tokens.lemma(subcursor), first);
+            add(first, tokens.lemma(subcursor), second);
+            return subcursor + 1;
+        }
+
+        subcursor = copula(tokens, end);
+        if (subcursor == -1) {
+            return end;
+        }
+        if (at(tokens, subcursor) && Label.isProperNoun(tokens, subcursor)) {
+            // X is Y's friend
+            final int owner = subcursor;
+            final int ownerEnd = name(tokens, owner);
+            if (!at(tokens, ownerEnd) || !Label.isPossessiveEnding(tokens, ownerEnd)) {
+                return end;
+            }
+            subcursor = skipModifiers(tokens, ownerEnd + 1);
+            if (!isRelationship(tokens, subcursor)) {
+                return end;
+            }
+            add(resolve(tokens, owner, ownerEnd), tokens.lemma(subcursor), resolve(tokens, start, end));
+            return subcursor + 1;
+        }
+
+        // X is the friend of Y
+        subcursor = skipModifiers(tokens, subcursor);
+        if (!isRelationship(tokens, subcursor) || !at(tokens, subcursor + 2)
+                || !Label.isPrepositionOrSubordinatingConjunction(tokens, subcursor + 1) || !tokens.lemma(subcursor + 1).equalsIgnoreCase("of")
+                || !Label.isProperNoun(tokens, subcursor + 2)) {
+            return end;
+        }
+        final int ownerEnd = name(tokens, subcursor + 2);
+        add(resolve(tokens, subcursor + 2, ownerEnd), tokens.lemma(subcursor), resolve(tokens, start, end));
+        return ownerEnd;
+    }
+
+    private static boolean at(@NotNull TokenBuffer tokens, int i) {
+        return i < tokens.size();
+    }
+
+    private static int name(@NotNull TokenBuffer tokens, int start) {
+        int end = start;
+        while (at(tokens, end) && Label.isProperNoun(tokens, end)) {
+            end++;
+        }
+        return end;
+    }
+
+    // position after a non negated form of "to be", or -1
+    private static int copula(@NotNull TokenBuffer tokens, int i) {
+        if (!at(tokens, i) || !Label.isVerb(tokens, i) || !tokens.lemma(i).equals("be")) {
+            return -1;
+        }
+        if (at(tokens, i + 1) && Label.isAdverb(tokens, i + 1) && tokens.lemma(i + 1).equalsIgnoreCase("not")) {
+            return -1;
+        }
+        return i + 1;
+    }
+
+    private static int skipModifiers(@NotNull TokenBuffer tokens, int i) {
+        while (at(tokens, i) && (Label.isDeterminer(tokens, i) || Label.isAdjective(tokens, i) || Label.isAdverb(tokens, i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isRelationship(@NotNull TokenBuffer tokens, int i) {
+        return at(tokens, i) && Label.isCommonNoun(tokens, i) && Label.RELATIONSHIPS.contains(tokens.lemma(i));
+    }
+
+    // the best matching known subject, a new one when the name was never seen
+    private @NotNull Subject resolve(@NotNull TokenBuffer tokens, int start, int end) {
+        final List<String> names = List.of(tokens.words(start, end));
+        final Subject known = subjectIndex.named(names).stream().max(Comparator.comparingInt(s -> s.matchWeight(names))).orElse(null);
+        if (known != null) {
+            return known;
+        }
+        final Subject subject = Subject.subject(vocab.getTerms(), tokens.word(start), mode);
+        if (end - start > 1) {
+            subject.addAlias(names.getFirst());
+        }
+        subjects.add(subject);
+        subjectIndex.register(subject);
+        vocab.addWord(tokens.word(start));
+        return subject;
+    }
+
+    // target is the type of source
+    private void add(@NotNull Subject source, @NotNull String type, @NotNull Subject target) {
+        if (source == target) {
+            return;
+        }
+        final int rows = store.size();
+        store.add(source.getOrdinal(), type, target.getOrdinal());
+        if (store.size() != rows) {
+            relationships.add(new Relationship(target, source, type));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RelationshipWorld{" +
+                "cursor=" + cursor +
+                ", store=" + store +
+                '}';
+    }
+}
@@ -1,6 +1,5 @@
 package org.example.wag.world;
 
-import edu.stanford.nlp.ling.CoreLabel;
 import org.example.wag.*;
 import org.jetbrains.annotations.NotNull;
 
@@ -8,19 +7,20 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.stream.IntStream;
 
 public class SubjectWorld implements World {
     public int cursor = 0;
     private final @NotNull List<Subject> subjects;
+    private final @NotNull SubjectIndex subjectIndex;
     private final @NotNull VocabSpace vocab;
     public final @NotNull VectorSpace vspace;
     public final @NotNull GraphSpace gspace;
     public final @NotNull AdjectiveIndex index;
 
-    public SubjectWorld(@NotNull List<Subject> subjects, @NotNull VocabSpace vocab, @NotNull VectorSpace vspace, @NotNull GraphSpace gspace, @NotNull AdjectiveIndex index) {
+    public SubjectWorld(@NotNull List<Subject> subjects, @NotNull SubjectIndex subjectIndex, @NotNull VocabSpace vocab, @NotNull VectorSpace vspace, @NotNull GraphSpace gspace, @NotNull AdjectiveIndex index) {
         this.subjects = subjects;
+        this.subjectIndex = subjectIndex;
         this.vocab = vocab;
         this.vspace = vspace;
         this.gspace = gspace;
@@ -28,7 +28,7 @@ public class SubjectWorld implements World {
     }
 
     public List<Subject> findSubjects(@NotNull List<String> aliases) {
-        return subjects.stream().filter(s -> s.matches(aliases)).toList();
+        return subjectIndex.named(aliases);
     }
 
     public void addWordToVocab(@NotNull String word) {
@@ -40,7 +40,7 @@ public class SubjectWorld implements World {
     public void addWordToVectorSpace(@NotNull String word) {
         if (!this.vspace.contains(word)) {
             final int d = this.vspace.dimensions();
-            this.vspace.set(word, VectorSpace.Vector.zeros(d).set(d - 1, 1).apply());
+            this.vspace.set(word, VectorSpace.Vector.sparse(d).set(d - 1, 1));
             this.vspace.equalize();
         }
     }
@@ -51,7 +51,7 @@ public class SubjectWorld implements World {
         }
     }
 
-    public void addWordToGraphSpace(@NotNull GraphSpace gspace, @NotNull String word) {
+    public void addWordToGraphSpace(@NotNull SubjectGraph gspace, @NotNull String word) {
         if (!gspace.contains(word)) {
             gspace.emplace(word);
         }
@@ -64,9 +64,9 @@ public class SubjectWorld implements World {
     }
 
     @Override
-    public void process(@NotNull List<CoreLabel> labels, int cursor) {
+    public void process(@NotNull TokenBuffer tokens, int cursor) {
         int subcursor = cursor;
-        final int sindex = labels.get(cursor).index() + 1;
+        final int sindex = tokens.index(cursor) + 1;
         boolean hasNoble;
         boolean hasNoun = false;
         boolean adjective = false;
@@ -78,29 +78,27 @@ public class SubjectWorld implements World {
         final @NotNull String fullname;
 
         final @NotNull GramWorld world = new GramWorld(true);
-        final @NotNull GraphSpace lgspace;
-
-        @NotNull CoreLabel label;
+        final @NotNull SubjectGraph lgspace;
 
         @NotNull List<String> aliases = new ArrayList<>();
         final @NotNull List<Subject> matches;
         final @NotNull List<String> accumulator = new ArrayList<>();
 
-        world.process(labels, subcursor);
-        subcursor += world.gram.size();
+        world.process(tokens, subcursor);
+        subcursor += world.size();
 
-        aliases.add(world.gram.getFirst().word());
+        aliases.add(world.word(0));
 
-        if (world.gram.size() >= 2) {
-            fullname = world.gram.stream().map(CoreLabel::word).collect(Collectors.joining(" "));
+        if (world.size() >= 2) {
+            fullname = world.words();
             aliases.add(fullname);
-            if (world.gram.size() > 2) {
-                hasNoble = world.gram.stream().anyMatch(Label::isNobiliaryParticle);
-                Stream<CoreLabel> stream = world.gram.stream();
+            if (world.size() > 2) {
+                hasNoble = IntStream.range(world.start, world.end).anyMatch(i -> Label.isNobiliaryParticle(tokens, i));
+                IntStream stream = IntStream.range(world.start, world.end);
                 if (hasNoble) {
-                    stream = stream.filter(Predicate.not(Label::isNobiliaryParticle));
+                    stream = stream.filter(i -> !Label.isNobiliaryParticle(tokens, i));
                 }
-                List<String> reducedNames = stream.map(CoreLabel::word).toList();
+                List<String> reducedNames = stream.mapToObj(tokens::word).toList();
                 if (reducedNames.size() > 2) {
                     String reducedName = String.join(" ", reducedNames);
                     String simpleName = reducedNames.getFirst() + " " + reducedNames.getLast();
@@ -125,11 +123,12 @@ public class SubjectWorld implements World {
         matches = findSubjects(aliases);
         if (matches.isEmpty()) {
             aliases.removeFirst();
-            subjects.add(Subject.subject(world.gram.getFirst().word()).addAliases(aliases));
-            addWordToVocab(world.gram.getFirst().word());
+            subjects.add(Subject.subject(vocab.getTerms(), world.word(0), gspace.getMode()).addAliases(aliases));
+            subjectIndex.register(subjects.getLast());
+            addWordToVocab(world.word(0));
             subject = subjects.getLast();
 
-            main = world.gram.getFirst().word();
+            main = world.word(0);
         } else {
             List<String> finalAliases = aliases;
             subject = matches.stream().max(Comparator.comparingInt(a -> a.matchWeight(finalAliases))).orElse(null);
@@ -138,20 +137,18 @@ public class SubjectWorld implements World {
 
             main = vocab.getWord(subject.getName());
         }
-        lgspace = subject.getGraphSpace();
+        lgspace = subject.getGraph();
         aliases.forEach(this::addWordToVocab);
 
-        if (subcursor >= labels.size()) {
+        if (subcursor >= tokens.size()) {
             this.cursor = subcursor;
             return;
         }
 
-        label = labels.get(subcursor);
-
         // TODO: implement the rest of the code
 
-        if (Label.isVerb(label)) {
-            if (label.lemma().equalsIgnoreCase("be")) {
+        if (Label.isVerb(tokens, subcursor)) {
+            if (tokens.lemma(subcursor).equalsIgnoreCase("be")) {
                 subcursor++;
             }
 
@@ -159,19 +156,17 @@ public class SubjectWorld implements World {
 
             // subprocess
             // TODO: subprocess is similar to the one used with Noun, we are just using another GraphSpace
-            for (; subcursor < labels.size(); subcursor++) {
-                label = labels.get(subcursor);
-
-                if ((subcursor != cursor) && (label.index() <= sindex)) {
+            for (; subcursor < tokens.size(); subcursor++) {
+                if ((subcursor != cursor) && (tokens.index(subcursor) <= sindex)) {
                     break;
                 }
 
-                if (Label.isNoun(label)) {
+                if (Label.isNoun(tokens, subcursor)) {
                     world.reset();
-                    world.process(labels, subcursor);
+                    world.process(tokens, subcursor);
 
-                    subcursor += world.gram.size() - 1;
-                    final String gram = world.gram.stream().map(CoreLabel::lemma).collect(Collectors.joining(" "));
+                    subcursor += world.size() - 1;
+                    final String gram = world.lemmas();
                     addWordToAll(gram);
 
                     lgspace.emplace(gram);
@@ -180,25 +175,25 @@ public class SubjectWorld implements World {
                     accumulator.forEach(a -> lgspace.setLink(gram, a, 1));
 
                     hasNoun = false; // reset
-                } else if (Label.isAdjective(label)) {
-                    addWordToVocab(label.word());
-                    addWordToVocab(label.lemma());
-                    addWordToGraphSpace(label.word());
-                    addWordToGraphSpace(label.lemma());
+                } else if (Label.isAdjective(tokens, subcursor)) {
+                    addWordToVocab(tokens.word(subcursor));
+                    addWordToVocab(tokens.lemma(subcursor));
+                    addWordToGraphSpace(tokens.word(subcursor));
+                    addWordToGraphSpace(tokens.lemma(subcursor));
 
-                    index.add(label);
+                    index.add(tokens, subcursor);
                     adjective = true; // crossed an adjective
 
-                    lgspace.emplace(label.word());
-                    lgspace.setLink(main, label.word(), negate ? -1 : 1);
+                    lgspace.emplace(tokens.word(subcursor));
+                    lgspace.setLink(main, tokens.word(subcursor), negate ? -1 : 1);
 
                     if (hasNoun) {
-                        accumulator.add(label.word());
+                        accumulator.add(tokens.word(subcursor));
                     }
-                } else if (Label.isAdverb(label)) {
-                    negate = label.lemma().equalsIgnoreCase("not");
-                } else if (Label.isConjunction(label)) {
-                    final @NotNull String cc = label.lemma();
+                } else if (Label.isAdverb(tokens, subcursor)) {
+                    negate = tokens.lemma(subcursor).equalsIgnoreCase("not");
+                } else if (Label.isConjunction(tokens, subcursor)) {
+                    final @NotNull String cc = tokens.lemma(subcursor);
                     if (cc.equalsIgnoreCase("and")) {
                         // TODO: introduce sub-block
                     } else if (cc.equalsIgnoreCase("but")) {
@@ -208,29 +203,29 @@ public class SubjectWorld implements World {
                     } else if (cc.equalsIgnoreCase("neither")) {
                         negate = true;
                     }
-                } else if (Label.isPrepositionOrSubordinatingConjunction(label)) {
-                    final @NotNull String pp = label.lemma();
+                } else if (Label.isPrepositionOrSubordinatingConjunction(tokens, subcursor)) {
+                    final @NotNull String pp = tokens.lemma(subcursor);
                     if (pp.equalsIgnoreCase("with")) {
-                        subcursor = attributeProcess(main, world, lgspace, labels, subcursor);
+                        subcursor = attributeProcess(main, world, lgspace, tokens, subcursor);
                     } else if (pp.equalsIgnoreCase("of")) {
 
                     } else if (pp.equalsIgnoreCase("in")) {
 
                     }
-                } else if (Label.isDeterminer(label)) {
+                } else if (Label.isDeterminer(tokens, subcursor)) {
                     accumulator.clear();
                     hasNoun = true;
-                } else if (Label.isWhPronoun(label)) {
-                    subcursor = attributeProcess(main, world, lgspace, labels, subcursor);
+                } else if (Label.isWhPronoun(tokens, subcursor)) {
+                    subcursor = attributeProcess(main, world, lgspace, tokens, subcursor);
                 }
             }
         }
 
         //System.out.println(subject.prettyString(vocab));
-        //System.out.println(subject.getGraphSpace().prettyString(vocab));
+        //System.out.println(subject.getGraph().prettyString(vocab));
 
-        /*if (Label.isVerb(label)) {
-            if (label.lemma().equalsIgnoreCase("be")) {
+        /*if (Label.isVerb(tokens, subcursor)) {
+            if (tokens.lemma(subcursor).equalsIgnoreCase("be")) {
                 subcursor++;
             }
 
@@ -238,7 +233,7 @@ public class SubjectWorld implements World {
             boolean[] negates = new boolean[0];
 
             NounWorld.SubNounWorld subworld = new NounWorld.SubNounWorld(negates, world.useProper(false), index);
-            subworld.process(labels, subcursor);
+            subworld.process(tokens, subcursor);
             System.out.println(subworld);
 
             negates = subworld.negates;
@@ -269,27 +264,26 @@ public class SubjectWorld implements World {
 
             subcursor = subworld.cursor;
 
-            if (subcursor >= labels.size()) {
+            if (subcursor >= tokens.size()) {
                 this.cursor = subcursor;
                 return;
             }
 
-            label = labels.get(subcursor);
-            if (Label.isPrepositionOrSubordinatingConjunction(label)) {
-                if (label.lemma().equalsIgnoreCase("with")) {
+            if (Label.isPrepositionOrSubordinatingConjunction(tokens, subcursor)) {
+                if (tokens.lemma(subcursor).equalsIgnoreCase("with")) {
                     addWord("have"); // since it's status verb 'be', meaning that everything after that is an attribute
                     subcursor++;
 
                     AttributeWorld attributeWorld = new AttributeWorld(world);
-                    attributeWorld.process(labels, subcursor);
+                    attributeWorld.process(tokens, subcursor);
                     for (Attribute attr : attributeWorld.attributes) {
                         subject.addAttribute(attr);
                     }
                     System.out.println(subject);
                 }
             }
-        } else if (Label.isConjunction(label)) {
-            if (label.lemma().equalsIgnoreCase("and")) {
+        } else if (Label.isConjunction(tokens, subcursor)) {
+            if (tokens.lemma(subcursor).equalsIgnoreCase("and")) {
                 subcursor++;
             }
         }*/
@@ -297,11 +291,10 @@ public class SubjectWorld implements World {
         this.cursor = subcursor;
     }
 
-    private int attributeProcess(final @NotNull String main, final @NotNull GramWorld world, final @NotNull GraphSpace gspace, final @NotNull List<CoreLabel> labels, final int cursor) {
+    private int attributeProcess(final @NotNull String main, final @NotNull GramWorld world, final @NotNull SubjectGraph gspace, final @NotNull TokenBuffer tokens, final int cursor) {
         int subcursor = cursor;
-        final int sindex = labels.get(cursor).index();
+        final int sindex = tokens.index(cursor);
 
-        CoreLabel label;
 
         @NotNull String attributeVerb = "have"; // default to 'have', if attribute use another verb, we will find it
         String attribute = null;
@@ -310,45 +303,43 @@ public class SubjectWorld implements World {
         final @NotNull List<String> adjective = new ArrayList<>();
         final @NotNull List<String> post = new ArrayList<>();
 
-        for (;subcursor < labels.size(); subcursor++) {
-            label = labels.get(subcursor);
-
-            if ((subcursor != cursor) && (label.index() <= sindex)) {
+        for (;subcursor < tokens.size(); subcursor++) {
+            if ((subcursor != cursor) && (tokens.index(subcursor) <= sindex)) {
                 break;
             }
 
-            if (Label.isNoun(label)) {
+            if (Label.isNoun(tokens, subcursor)) {
                 world.reset();
-                world.process(labels, subcursor);
+                world.process(tokens, subcursor);
 
-                final @NotNull String gram = world.gram.stream().map(CoreLabel::lemma).collect(Collectors.joining(" "));
-                subcursor += world.gram.size() - 1;
+                final @NotNull String gram = world.lemmas();
+                subcursor += world.size() - 1;
 
                 if (attribute == null) {
                     attribute = gram;
                 } else {
                     post.add(gram);
                 }
-            } else if (Label.isAdjective(label)) {
-                addWordToVocab(label.word());
-                addWordToVocab(label.lemma());
-                addWordToGraphSpace(label.word());
-                addWordToGraphSpace(label.lemma());
-
-                index.add(label);
-                adjective.add(label.word());
-            } else if (Label.isAdverb(label)) {
-
-            } else if (Label.isPrepositionOrSubordinatingConjunction(label)) {
-                final @NotNull String pp = label.lemma();
+            } else if (Label.isAdjective(tokens, subcursor)) {
+                addWordToVocab(tokens.word(subcursor));
+                addWordToVocab(tokens.lemma(subcursor));
+                addWordToGraphSpace(tokens.word(subcursor));
+                addWordToGraphSpace(tokens.lemma(subcursor));
+
+                index.add(tokens, subcursor);
+                adjective.add(tokens.word(subcursor));
+            } else if (Label.isAdverb(tokens, subcursor)) {
+
+            } else if (Label.isPrepositionOrSubordinatingConjunction(tokens, subcursor)) {
+                final @NotNull String pp = tokens.lemma(subcursor);
                 if (pp.equalsIgnoreCase("of")) {
                     pre.add(attribute);
                     attribute = null;
                 }
-            } else if (Label.isVerb(label)) {
-                attributeVerb = label.lemma(); // found it
-            } else if (Label.isConjunction(label)) {
-                final @NotNull String cc = label.lemma();
+            } else if (Label.isVerb(tokens, subcursor)) {
+                attributeVerb = tokens.lemma(subcursor); // found it
+            } else if (Label.isConjunction(tokens, subcursor)) {
+                final @NotNull String cc = tokens.lemma(subcursor);
                 if (cc.equalsIgnoreCase("and")) {
                     final String finalAttribute = attribute;
                     addWordToVocab(attributeVerb);
@@ -430,21 +421,18 @@ public class SubjectWorld implements World {
         }
 
         @Override
-        public void process(@NotNull List<CoreLabel> labels, int cursor) {
+        public void process(@NotNull TokenBuffer tokens, int cursor) {
             int subcursor = cursor;
-            int sindex = labels.get(cursor).index();
+            int sindex = tokens.index(cursor);
             boolean negate = false;
 
-            CoreLabel label;
-            for (; subcursor < labels.size(); subcursor++) {
-                label = labels.get(subcursor);
-
-                if ((subcursor != cursor) && (label.index() <= sindex)) {
+            for (; subcursor < tokens.size(); subcursor++) {
+                if ((subcursor != cursor) && (tokens.index(subcursor) <= sindex)) {
                     break;
                 }
 
-                if (Label.isAdverb(label)) {
-                } else if (Label.isAdjective(label)) {
+                if (Label.isAdverb(tokens, subcursor)) {
+                } else if (Label.isAdjective(tokens, subcursor)) {
 
                 }
             }
@@ -1,14 +1,12 @@
 package org.example.wag.world;
 
-import edu.stanford.nlp.ling.CoreLabel;
+import org.example.wag.TokenBuffer;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.List;
-
 public interface World {
 
-    default void process(@NotNull List<CoreLabel> labels) {}
-    default void process(@NotNull List<CoreLabel> labels, int cursor) {}
-    default void process(@NotNull List<CoreLabel> labels, int cursor, @NotNull String origin) {}
+    default void process(@NotNull TokenBuffer tokens) {}
+    default void process(@NotNull TokenBuffer tokens, int cursor) {}
+    default void process(@NotNull TokenBuffer tokens, int cursor, @NotNull String origin) {}
     default void reset() {}
 }